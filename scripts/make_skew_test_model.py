@@ -0,0 +1,42 @@
+"""生成用于联调 CNN 倾斜检测器的最小 ONNX 模型
+
+模型满足 OnnxSkewDetector 的输入输出约定：
+  输入  image      float32 [N, 1, S, S]
+  输出  skew       float32 [N, 2]  (角度°, 置信度)
+
+输出恒为 (0°, 0)：只用于验证加载、凑批和推理链路，置信度为0时级联会继续交给 Radon。
+
+用法: pip install onnx && python scripts/make_skew_test_model.py [输出路径] [S]
+"""
+import sys
+
+import onnx
+from onnx import TensorProto, helper
+
+
+def build(size):
+    image = helper.make_tensor_value_info("image", TensorProto.FLOAT, ["N", 1, size, size])
+    skew = helper.make_tensor_value_info("skew", TensorProto.FLOAT, ["N", 2])
+
+    shape = helper.make_tensor("shape", TensorProto.INT64, [2], [-1, 1])
+    zero = helper.make_tensor("zero", TensorProto.FLOAT, [], [0.0])
+
+    nodes = [
+        helper.make_node("GlobalAveragePool", ["image"], ["pooled"]),
+        helper.make_node("Reshape", ["pooled", "shape"], ["flat"]),
+        helper.make_node("Mul", ["flat", "zero"], ["angle"]),
+        helper.make_node("Mul", ["flat", "zero"], ["confidence"]),
+        helper.make_node("Concat", ["angle", "confidence"], ["skew"], axis=1),
+    ]
+    graph = helper.make_graph(nodes, "skew_test", [image], [skew], initializer=[shape, zero])
+    model = helper.make_model(graph, opset_imports=[helper.make_opsetid("", 13)])
+    model.ir_version = 8
+    onnx.checker.check_model(model)
+    return model
+
+
+if __name__ == "__main__":
+    path = sys.argv[1] if len(sys.argv) > 1 else "skew_test.onnx"
+    size = int(sys.argv[2]) if len(sys.argv) > 2 else 256
+    onnx.save(build(size), path)
+    print("已生成", path)
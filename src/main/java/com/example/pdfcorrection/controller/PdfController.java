@@ -1,23 +1,39 @@
 package com.example.pdfcorrection.controller;
 
 import com.example.pdfcorrection.model.CorrectionResult;
+import com.example.pdfcorrection.model.JobState;
+import com.example.pdfcorrection.model.PageSkewAnalysis;
+import com.example.pdfcorrection.model.ProgressDispatchStats;
+import com.example.pdfcorrection.model.SkewAnalysisResult;
+import com.example.pdfcorrection.model.SkewDetectorStats;
+import com.example.pdfcorrection.service.AdmissionRejectedException;
+import com.example.pdfcorrection.service.CorrectionJob;
 import com.example.pdfcorrection.service.PdfCorrectionService;
 import com.example.pdfcorrection.service.ProgressService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URLEncoder;
 import java.io.UnsupportedEncodingException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/pdf")
@@ -30,7 +46,10 @@ public class PdfController {
     @Autowired
     private ProgressService progressService;
 
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     @PostMapping("/upload")
     public ResponseEntity<?> uploadAndCorrectPdf(@RequestParam("file") MultipartFile file) {
@@ -49,6 +68,8 @@ public class PdfController {
             return ResponseEntity.ok()
                     .body(new UploadResponse(true, "PDF校正成功", result.getFileName(), result.getPageAngles()));
 
+        } catch (AdmissionRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             e.printStackTrace();
             // 返回详细的错误信息给前端
@@ -57,9 +78,136 @@ public class PdfController {
         }
     }
     
-    @GetMapping("/progress")
-    public SseEmitter getProgress() {
-        return progressService.createEmitter();
+    /**
+     * 只检测各页倾斜，不生成矫正文件
+     *
+     * <p>stream=true 时以 NDJSON 逐行返回：每页检测完成即输出一行页面结果(按完成顺序)，
+     * 最后一行为不含页面列表的汇总；中途失败时最后一行为错误信息
+     */
+    @PostMapping("/analyze")
+    public ResponseEntity<?> analyzePdf(@RequestParam("file") MultipartFile file,
+                                        @RequestParam(value = "stream", defaultValue = "false") boolean stream) {
+        try {
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest().body(new UploadResponse(false, "文件不能为空", null, new ArrayList<>()));
+            }
+
+            if (!file.getOriginalFilename().toLowerCase().endsWith(".pdf")) {
+                return ResponseEntity.badRequest().body(new UploadResponse(false, "只支持PDF文件", null, new ArrayList<>()));
+            }
+
+            if (!stream) {
+                return ResponseEntity.ok(pdfCorrectionService.analyzePdfSkew(file));
+            }
+
+            // 任务线程只入队，不直接写网络，慢速客户端不会拖住检测
+            LinkedBlockingQueue<PageSkewAnalysis> pages = new LinkedBlockingQueue<>();
+            Future<SkewAnalysisResult> analysis = pdfCorrectionService.submitSkewAnalysis(file, pages::add);
+            StreamingResponseBody body = out -> streamAnalysis(analysis, pages, out);
+            return ResponseEntity.ok()
+                    .contentType(APPLICATION_NDJSON)
+                    .body(body);
+
+        } catch (AdmissionRejectedException e) {
+            return rejected(e);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError()
+                    .body(new UploadResponse(false, "分析失败: " + e.getMessage(), null, new ArrayList<>()));
+        }
+    }
+
+    /**
+     * 提交异步矫正任务，上传落盘后立即返回任务ID
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@RequestParam("file") MultipartFile file) {
+        try {
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest().body(new UploadResponse(false, "文件不能为空", null, new ArrayList<>()));
+            }
+
+            if (!file.getOriginalFilename().toLowerCase().endsWith(".pdf")) {
+                return ResponseEntity.badRequest().body(new UploadResponse(false, "只支持PDF文件", null, new ArrayList<>()));
+            }
+
+            CorrectionJob job = pdfCorrectionService.submitCorrectionJob(file);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/pdf/jobs/" + job.getId()))
+                    .body(toJobStatus(job));
+
+        } catch (AdmissionRejectedException e) {
+            return rejected(e);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError()
+                    .body(new UploadResponse(false, "任务提交失败: " + e.getMessage(), null, new ArrayList<>()));
+        }
+    }
+
+    /**
+     * 查询任务状态和已完成页面的角度
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<JobStatusResponse> getJobStatus(@PathVariable String jobId) {
+        return pdfCorrectionService.findJob(jobId)
+                .map(job -> ResponseEntity.ok(toJobStatus(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 下载任务结果，任务未完成时返回409
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<?> downloadJobResult(@PathVariable String jobId) {
+        Optional<CorrectionJob> found = pdfCorrectionService.findJob(jobId);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        CorrectionJob job = found.get();
+        if (job.getState() != JobState.SUCCEEDED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(toJobStatus(job));
+        }
+        return downloadCorrectedPdf(job.getResultFileName());
+    }
+
+    /**
+     * 取消任务；已结束的任务则删除其结果
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<Void> cancelJob(@PathVariable String jobId) {
+        if (!pdfCorrectionService.cancelJob(jobId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * 订阅任务进度(SSE)，事件为 JSON 格式的 ProgressEvent
+     */
+    @GetMapping("/jobs/{jobId}/events")
+    public ResponseEntity<SseEmitter> subscribeJobEvents(@PathVariable String jobId) {
+        if (pdfCorrectionService.findJob(jobId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(progressService.subscribe(jobId));
+    }
+
+    /**
+     * 进度派发统计(丢弃、合并、延迟的事件数等)
+     */
+    @GetMapping("/progress/stats")
+    public ResponseEntity<ProgressDispatchStats> getProgressStats() {
+        return ResponseEntity.ok(progressService.getDispatchStats());
+    }
+
+    /**
+     * 倾斜检测器统计(级联位置、调用次数、命中率、平均耗时)
+     */
+    @GetMapping("/detectors/stats")
+    public ResponseEntity<List<SkewDetectorStats>> getDetectorStats() {
+        return ResponseEntity.ok(pdfCorrectionService.getDetectorStats());
     }
 
     @GetMapping("/download/{fileName}")
@@ -83,6 +231,60 @@ public class PdfController {
         }
     }
 
+    /**
+     * 逐行写出分析结果，客户端断开时取消分析
+     */
+    private void streamAnalysis(Future<SkewAnalysisResult> analysis,
+                                LinkedBlockingQueue<PageSkewAnalysis> pages,
+                                OutputStream out) throws IOException {
+        try {
+            // 页面回调先于任务结束，任务结束后队列中已是全部剩余页面
+            while (!analysis.isDone() || !pages.isEmpty()) {
+                PageSkewAnalysis page = pages.poll(200, TimeUnit.MILLISECONDS);
+                if (page != null) {
+                    writeLine(out, page);
+                }
+            }
+            writeLine(out, analysis.get().summary());
+        } catch (ExecutionException e) {
+            writeLine(out, new UploadResponse(false, "分析失败: " + e.getCause().getMessage(), null, new ArrayList<>()));
+        } catch (InterruptedException e) {
+            analysis.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            analysis.cancel(true);
+            throw e;
+        }
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * 满载时快速拒绝，提示客户端稍后重试
+     */
+    private ResponseEntity<UploadResponse> rejected(AdmissionRejectedException e) {
+        HttpStatus status = e.isShuttingDown() ?
+                HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS;
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new UploadResponse(false, e.getMessage(), null, new ArrayList<>()));
+    }
+
+    private JobStatusResponse toJobStatus(CorrectionJob job) {
+        return new JobStatusResponse(
+                job.getId(),
+                job.getState(),
+                pdfCorrectionService.getQueuePosition(job),
+                job.getTotalPages(),
+                job.getPageAngles(),
+                job.getResultFileName(),
+                job.getErrorMessage());
+    }
+
     static class UploadResponse {
         private boolean success;
         private String message;
@@ -128,4 +330,59 @@ public class PdfController {
             this.pageAngles = pageAngles;
         }
     }
+
+    static class JobStatusResponse {
+        private final String jobId;
+        private final JobState state;
+        private final int queuePosition;
+        private final int totalPages;
+        private final int completedPages;
+        private final List<Double> pageAngles;
+        private final String fileName;
+        private final String message;
+
+        public JobStatusResponse(String jobId, JobState state, int queuePosition, int totalPages,
+                                 List<Double> pageAngles, String fileName, String message) {
+            this.jobId = jobId;
+            this.state = state;
+            this.queuePosition = queuePosition;
+            this.totalPages = totalPages;
+            this.completedPages = pageAngles.size();
+            this.pageAngles = pageAngles;
+            this.fileName = fileName;
+            this.message = message;
+        }
+
+        public String getJobId() {
+            return jobId;
+        }
+
+        public JobState getState() {
+            return state;
+        }
+
+        public int getQueuePosition() {
+            return queuePosition;
+        }
+
+        public int getTotalPages() {
+            return totalPages;
+        }
+
+        public int getCompletedPages() {
+            return completedPages;
+        }
+
+        public List<Double> getPageAngles() {
+            return pageAngles;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
 }
\ No newline at end of file
@@ -7,7 +7,7 @@ import java.awt.image.BufferedImage;
 
 /**
  * 矫正后的页面数据
- * 包含页面索引、矫正后的图像和原始页面尺寸
+ * 包含页面索引、矫正后的图像、原始页面尺寸和检测角度
  */
 @Getter
 public class CorrectedPageData {
@@ -15,16 +15,18 @@ public class CorrectedPageData {
     private final BufferedImage image;
     private final PDRectangle originalSize;
     private final boolean needsCorrection;
+    private final double angle;
 
 
-    public CorrectedPageData(int pageIndex, BufferedImage image, PDRectangle originalSize, boolean b) {
+    public CorrectedPageData(int pageIndex, BufferedImage image, PDRectangle originalSize, boolean b, double angle) {
         this.pageIndex = pageIndex;
         this.image = image;
         this.originalSize = originalSize;
         this.needsCorrection = b;
+        this.angle = angle;
     }
 
     public boolean needsCorrection() {
         return needsCorrection;
     }
-}
\ No newline at end of file
+}
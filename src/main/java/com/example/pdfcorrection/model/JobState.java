@@ -0,0 +1,21 @@
+package com.example.pdfcorrection.model;
+
+/**
+ * 矫正任务状态
+ */
+public enum JobState {
+    /** 已准入，等待任务线程 */
+    QUEUED,
+    /** 正在处理 */
+    RUNNING,
+    /** 处理完成，结果可下载 */
+    SUCCEEDED,
+    /** 处理失败 */
+    FAILED,
+    /** 已取消 */
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -2,15 +2,21 @@ package com.example.pdfcorrection.model;
 
 /**
  * 页面角度检测结果
- * 包含页面索引和检测到的倾斜角度
+ * 包含页面索引、检测到的倾斜角度和置信度
  */
 public class PageAngleResult {
     private final int pageIndex;
     private final double angle;
+    private final double confidence;
 
     public PageAngleResult(int pageIndex, double angle) {
+        this(pageIndex, angle, 0.0);
+    }
+
+    public PageAngleResult(int pageIndex, double angle, double confidence) {
         this.pageIndex = pageIndex;
         this.angle = angle;
+        this.confidence = confidence;
     }
 
     public int getPageIndex() {
@@ -20,4 +26,11 @@ public class PageAngleResult {
     public double getAngle() {
         return angle;
     }
-}
\ No newline at end of file
+
+    /**
+     * 置信度，取值[0, 1]
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.pdfcorrection.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+/**
+ * 单页倾斜分析结果
+ *
+ * <p>只含检测阶段的输出：最终角度、Hough/Radon 各自的角度和评分以及置信度。
+ * 某一算法没有给出结果(线段不足、超时、渲染失败)时对应字段为null，不参与序列化
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageSkewAnalysis {
+    private final int pageIndex;
+    private final double angle;
+    private final double confidence;
+    private final Double houghAngle;
+    private final Double houghScore;
+    private final Double radonAngle;
+    private final Double radonScore;
+    private final boolean needsCorrection;
+    private final boolean degraded;
+    private final long elapsedMs;
+
+    public PageSkewAnalysis(int pageIndex, double angle, double confidence,
+                            double houghAngle, double houghScore,
+                            double radonAngle, double radonScore,
+                            boolean needsCorrection, boolean degraded, long elapsedMs) {
+        this.pageIndex = pageIndex;
+        this.angle = angle;
+        this.confidence = confidence;
+        this.houghAngle = finiteOrNull(houghAngle);
+        this.houghScore = Double.isNaN(houghAngle) ? null : houghScore;
+        this.radonAngle = finiteOrNull(radonAngle);
+        this.radonScore = Double.isNaN(radonAngle) ? null : radonScore;
+        this.needsCorrection = needsCorrection;
+        this.degraded = degraded;
+        this.elapsedMs = elapsedMs;
+    }
+
+    private static Double finiteOrNull(double value) {
+        return Double.isFinite(value) ? value : null;
+    }
+}
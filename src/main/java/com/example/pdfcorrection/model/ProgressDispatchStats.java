@@ -0,0 +1,46 @@
+package com.example.pdfcorrection.model;
+
+import lombok.Getter;
+
+/**
+ * 进度派发统计(自启动以来累计)
+ */
+@Getter
+public class ProgressDispatchStats {
+    /** 当前订阅连接数 */
+    private final int activeSubscribers;
+    /** 入队事件数 */
+    private final long enqueuedEvents;
+    /** 成功写出事件数 */
+    private final long deliveredEvents;
+    /** 被后续页面事件合并的事件数 */
+    private final long coalescedEvents;
+    /** 因缓冲满或连接关闭而丢弃的事件数 */
+    private final long droppedEvents;
+    /** 入队到写出耗时超过阈值的事件数 */
+    private final long delayedEvents;
+    /** 写出失败次数(失败的连接随即关闭) */
+    private final long failedSends;
+    /** 因积压超过延迟阈值而关闭的订阅数 */
+    private final long staleSubscribers;
+    /** 入队到写出的最大耗时 */
+    private final long maxDelayMs;
+    /** 延迟统计阈值 */
+    private final long delayThresholdMs;
+
+    public ProgressDispatchStats(int activeSubscribers, long enqueuedEvents, long deliveredEvents,
+                                 long coalescedEvents, long droppedEvents, long delayedEvents,
+                                 long failedSends, long staleSubscribers, long maxDelayMs,
+                                 long delayThresholdMs) {
+        this.activeSubscribers = activeSubscribers;
+        this.enqueuedEvents = enqueuedEvents;
+        this.deliveredEvents = deliveredEvents;
+        this.coalescedEvents = coalescedEvents;
+        this.droppedEvents = droppedEvents;
+        this.delayedEvents = delayedEvents;
+        this.failedSends = failedSends;
+        this.staleSubscribers = staleSubscribers;
+        this.maxDelayMs = maxDelayMs;
+        this.delayThresholdMs = delayThresholdMs;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.pdfcorrection.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 任务进度事件
+ *
+ * <p>以 JSON 通过 SSE 推送给订阅该任务的客户端；未涉及的字段为null，不参与序列化
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProgressEvent {
+    private final String jobId;
+    private final ProgressPhase phase;
+    private final String message;
+    private final Integer queuePosition;
+    private final Integer pageIndex;
+    private final Integer completedPages;
+    private final Integer totalPages;
+    private final Double angle;
+    private final Double confidence;
+    private final Map<String, Long> timings;
+    private final long timestamp = System.currentTimeMillis();
+
+    private ProgressEvent(String jobId, ProgressPhase phase, String message,
+                          Integer queuePosition, Integer pageIndex,
+                          Integer completedPages, Integer totalPages,
+                          Double angle, Double confidence, Map<String, Long> timings) {
+        this.jobId = jobId;
+        this.phase = phase;
+        this.message = message;
+        this.queuePosition = queuePosition;
+        this.pageIndex = pageIndex;
+        this.completedPages = completedPages;
+        this.totalPages = totalPages;
+        this.angle = angle;
+        this.confidence = confidence;
+        this.timings = timings;
+    }
+
+    /**
+     * 排队事件
+     */
+    public static ProgressEvent queued(String jobId, int queuePosition) {
+        return new ProgressEvent(jobId, ProgressPhase.QUEUED,
+                "排队中，前方还有 " + Math.max(0, queuePosition - 1) + " 个任务",
+                queuePosition, null, null, null, null, null, null);
+    }
+
+    /**
+     * 开始处理事件
+     */
+    public static ProgressEvent started(String jobId, int totalPages) {
+        return new ProgressEvent(jobId, ProgressPhase.STARTED,
+                "开始处理 " + totalPages + " 页PDF...",
+                null, null, 0, totalPages, null, null, null);
+    }
+
+    /**
+     * 页面完成事件
+     *
+     * @param timings 该页各阶段耗时(ms)
+     */
+    public static ProgressEvent page(String jobId, int pageIndex, int completedPages, int totalPages,
+                                     double angle, double confidence, Map<String, Long> timings) {
+        return new ProgressEvent(jobId, ProgressPhase.PAGE,
+                String.format("页面 %d/%d 已完成", completedPages, totalPages),
+                null, pageIndex, completedPages, totalPages, angle, confidence, timings);
+    }
+
+    /**
+     * 保存事件
+     */
+    public static ProgressEvent saving(String jobId, int totalPages) {
+        return new ProgressEvent(jobId, ProgressPhase.SAVING, "正在保存文件...",
+                null, null, totalPages, totalPages, null, null, null);
+    }
+
+    /**
+     * 完成事件
+     *
+     * @param averageAngle 平均倾斜角度
+     * @param timings      各阶段累计耗时及总耗时(ms)
+     */
+    public static ProgressEvent completed(String jobId, int totalPages, double averageAngle,
+                                          Map<String, Long> timings) {
+        return new ProgressEvent(jobId, ProgressPhase.COMPLETED, "处理完成",
+                null, null, totalPages, totalPages, averageAngle, null, timings);
+    }
+
+    /**
+     * 失败事件
+     */
+    public static ProgressEvent failed(String jobId, String message) {
+        return new ProgressEvent(jobId, ProgressPhase.FAILED, "处理失败: " + message,
+                null, null, null, null, null, null, null);
+    }
+
+    /**
+     * 取消事件
+     */
+    public static ProgressEvent cancelled(String jobId) {
+        return new ProgressEvent(jobId, ProgressPhase.CANCELLED, "任务已取消",
+                null, null, null, null, null, null, null);
+    }
+}
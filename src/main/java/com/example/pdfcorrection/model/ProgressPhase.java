@@ -0,0 +1,25 @@
+package com.example.pdfcorrection.model;
+
+/**
+ * 进度事件所处阶段
+ */
+public enum ProgressPhase {
+    /** 排队等待 */
+    QUEUED,
+    /** 开始处理，已知总页数 */
+    STARTED,
+    /** 页面完成(合并后按固定间隔发送) */
+    PAGE,
+    /** 正在保存输出文件 */
+    SAVING,
+    /** 处理完成 */
+    COMPLETED,
+    /** 处理失败 */
+    FAILED,
+    /** 已取消 */
+    CANCELLED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.pdfcorrection.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 文档倾斜分析结果
+ *
+ * <p>页面按页码排序；流式返回时页面已逐条发送，汇总行不再重复携带页面列表
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SkewAnalysisResult {
+    private final int totalPages;
+    private final int skewedPages;
+    private final double averageAngle;
+    private final double maxAbsAngle;
+    private final long totalTime;
+    private final List<PageSkewAnalysis> pages;
+
+    public SkewAnalysisResult(List<PageSkewAnalysis> pages, long totalTime) {
+        this(pages.size(),
+                (int) pages.stream().filter(PageSkewAnalysis::isNeedsCorrection).count(),
+                pages.stream().mapToDouble(PageSkewAnalysis::getAngle).average().orElse(0.0),
+                pages.stream().mapToDouble(p -> Math.abs(p.getAngle())).max().orElse(0.0),
+                totalTime,
+                pages);
+    }
+
+    private SkewAnalysisResult(int totalPages, int skewedPages, double averageAngle,
+                               double maxAbsAngle, long totalTime, List<PageSkewAnalysis> pages) {
+        this.totalPages = totalPages;
+        this.skewedPages = skewedPages;
+        this.averageAngle = averageAngle;
+        this.maxAbsAngle = maxAbsAngle;
+        this.totalTime = totalTime;
+        this.pages = pages;
+    }
+
+    /**
+     * 不含页面列表的汇总
+     */
+    public SkewAnalysisResult summary() {
+        return new SkewAnalysisResult(totalPages, skewedPages, averageAngle, maxAbsAngle, totalTime, null);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.pdfcorrection.model;
+
+import lombok.Getter;
+
+/**
+ * 单个倾斜检测器的运行统计(自启动以来累计)
+ */
+@Getter
+public class SkewDetectorStats {
+    /** 检测器名称 */
+    private final String name;
+    /** 在级联中的位置，从0开始；未启用为-1 */
+    private final int cascadeIndex;
+    /** 调用次数 */
+    private final long invocations;
+    /** 给出结果且置信度达到阈值、级联就此停止的次数 */
+    private final long decisive;
+    /** 没有给出结果的次数 */
+    private final long noResult;
+    /** 超时或异常次数 */
+    private final long failures;
+    /** 命中率：decisive / invocations */
+    private final double hitRate;
+    /** 平均耗时 */
+    private final double averageMillis;
+    /** 累计耗时 */
+    private final long totalMillis;
+
+    public SkewDetectorStats(String name, int cascadeIndex, long invocations, long decisive,
+                             long noResult, long failures, long totalNanos) {
+        this.name = name;
+        this.cascadeIndex = cascadeIndex;
+        this.invocations = invocations;
+        this.decisive = decisive;
+        this.noResult = noResult;
+        this.failures = failures;
+        this.hitRate = invocations > 0 ? (double) decisive / invocations : 0.0;
+        this.averageMillis = invocations > 0 ? totalNanos / 1_000_000.0 / invocations : 0.0;
+        this.totalMillis = totalNanos / 1_000_000L;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.pdfcorrection.service;
+
+/**
+ * 任务准入被拒绝：并发任务和等待队列均已满，或服务正在关闭
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+    private final boolean shuttingDown;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds, boolean shuttingDown) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.shuttingDown = shuttingDown;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public boolean isShuttingDown() {
+        return shuttingDown;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.pdfcorrection.service;
+
+import java.util.Arrays;
+
+/**
+ * 定宽角度直方图
+ *
+ * <p>桶中心为 round(angle / bucketSize) · bucketSize，与原先 Map&lt;Double, Double&gt; 的键一致，
+ * 但权重存放在基本类型数组里，累加不装箱，清空后可重复使用。超出 ±range 的角度计入边缘桶
+ */
+final class AngleHistogram {
+
+    private final double bucketSize;
+    private final int offset;
+    private final double[] weights;
+    private int added;
+
+    AngleHistogram(double range, double bucketSize) {
+        this.bucketSize = bucketSize;
+        this.offset = (int) Math.ceil(range / bucketSize) + 1;
+        this.weights = new double[2 * offset + 1];
+    }
+
+    void clear() {
+        Arrays.fill(weights, 0.0);
+        added = 0;
+    }
+
+    void add(double angle, double weight) {
+        weights[index(angle)] += weight;
+        added++;
+    }
+
+    boolean isEmpty() {
+        return added == 0;
+    }
+
+    int index(double angle) {
+        long i = Math.round(angle / bucketSize) + offset;
+        return (int) Math.max(0, Math.min(weights.length - 1, i));
+    }
+
+    int size() {
+        return weights.length;
+    }
+
+    double bucketAngle(int index) {
+        return (index - offset) * bucketSize;
+    }
+
+    double weight(int index) {
+        return weights[index];
+    }
+
+    /**
+     * 权重最大的桶，同权重取角度较小者
+     */
+    int argMax() {
+        int best = 0;
+        for (int i = 1; i < weights.length; i++) {
+            if (weights[i] > weights[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
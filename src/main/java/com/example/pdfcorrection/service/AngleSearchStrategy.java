@@ -0,0 +1,28 @@
+package com.example.pdfcorrection.service;
+
+/**
+ * Radon 单块角度搜索策略
+ *
+ * <p>在搜索窗口内寻找使投影评分最大的角度，窗口默认为 [-range, range]，有文档级先验时收窄。返回的评分始终是全分辨率层上的评分，
+ * 以便不同策略的结果可以参与同一套块投票和阈值判断。
+ * 每次评分前检查一次取消和页面时限。
+ */
+interface AngleSearchStrategy {
+
+    Result search(RadonProjection projection, AngleWindow window, PageDeadline deadline);
+
+    /**
+     * 搜索结果及评分次数(按层累计)
+     */
+    class Result {
+        final double angle;
+        final double score;
+        final int evaluations;
+
+        Result(double angle, double score, int evaluations) {
+            this.angle = angle;
+            this.score = score;
+            this.evaluations = evaluations;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.pdfcorrection.service;
+
+/**
+ * 角度搜索窗口 [center - halfWidth, center + halfWidth]
+ *
+ * <p>全范围窗口以0为中心；文档级角度先验收窄后，窗口以已完成页面的角度中位数为中心
+ */
+final class AngleWindow {
+
+    final double center;
+    final double halfWidth;
+    private final boolean full;
+
+    private AngleWindow(double center, double halfWidth, boolean full) {
+        this.center = center;
+        this.halfWidth = halfWidth;
+        this.full = full;
+    }
+
+    /**
+     * 全范围 [-range, range]
+     */
+    static AngleWindow full(double range) {
+        return new AngleWindow(0.0, range, true);
+    }
+
+    /**
+     * 以 center 为中心的窗口，裁剪到 [-range, range] 内
+     */
+    static AngleWindow around(double center, double halfWidth, double range) {
+        double min = Math.max(-range, center - halfWidth);
+        double max = Math.min(range, center + halfWidth);
+        if (max - min >= 2 * range) {
+            return full(range);
+        }
+        return new AngleWindow((min + max) / 2.0, (max - min) / 2.0, false);
+    }
+
+    double min() {
+        return center - halfWidth;
+    }
+
+    double max() {
+        return center + halfWidth;
+    }
+
+    boolean isFull() {
+        return full;
+    }
+
+    /**
+     * 窗口内第一个 step 整数倍的角度。粗扫描从这里开始，收窄的窗口与全范围扫描取同一组格点，
+     * 峰值在窗口内时两者结果一致；窗口窄于步长、没有格点时返回中心
+     */
+    double firstGridPoint(double step) {
+        double first = Math.ceil(min() / step - 1e-9) * step;
+        return first <= max() + 1e-9 ? first : center;
+    }
+
+    double clamp(double angle) {
+        return Math.max(min(), Math.min(max(), angle));
+    }
+
+    /**
+     * 角度贴近窗口边界，说明真实峰值可能在窗口外
+     */
+    boolean isNearEdge(double angle, double margin) {
+        return angle - min() < margin || max() - angle < margin;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%.2f°, %.2f°]", min(), max());
+    }
+}
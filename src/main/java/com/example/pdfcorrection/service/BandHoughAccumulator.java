@@ -0,0 +1,191 @@
+package com.example.pdfcorrection.service;
+
+import org.opencv.core.Mat;
+
+import java.util.Arrays;
+
+/**
+ * 只覆盖近水平方向的 Hough 累加器
+ *
+ * <p>取代原先的 HoughLinesP：它在完整的 180° 上按 π/1080 投票，随后只保留 ±5° 内的线段，绝大部分累加都被丢弃。
+ * 这里只在线段角度 φ ∈ [-band, band] 内、按更细的 thetaStep 投票：
+ * 对边缘点 (x, y)，ρ = y·cos φ - x·sin φ，ρ 分辨率1像素。
+ * 3×3 邻域内的局部极大值且票数达到阈值的单元视为一条直线，票数近似线长；
+ * 角度沿 φ 方向做抛物线插值得到亚步长精度。
+ * 投票用定点整数运算，每个边缘点只累加 2·band/thetaStep + 1 次。
+ *
+ * <p>边缘点过多时按固定步长抽样，票数按抽样比例还原。
+ * 缓冲在实例内复用，实例属于 {@link DetectionWorkspace}，不是线程安全的
+ */
+class BandHoughAccumulator {
+
+    // 三角函数表的定点小数位数；坐标小于 MAX_SIZE 时乘积不会溢出 int
+    private static final int FIXED_SHIFT = 16;
+    private static final int MAX_SIZE = 1 << 14;
+
+    private final double band;
+    private final double thetaStep;
+    private final int thetaBins;
+    private final int[] sin;
+    private final int[] cos;
+
+    private byte[] pixels = new byte[0];
+    private int[] xs = new int[0];
+    private int[] ys = new int[0];
+    private int[] votes = new int[0];
+    private int rhoBins;
+    private int rhoOffset;
+    private int stride = 1;
+
+    /**
+     * 检测到的一条直线
+     */
+    interface LineConsumer {
+        /**
+         * @param angle  线段角度(度)，与 atan2(dy, dx) 同向
+         * @param length 按抽样比例还原后的票数，近似线长(像素)
+         */
+        void accept(double angle, double length);
+    }
+
+    /**
+     * @param band      角度范围半宽(度)
+     * @param thetaStep 角度步长(度)
+     */
+    BandHoughAccumulator(double band, double thetaStep) {
+        this.band = band;
+        this.thetaStep = thetaStep;
+        this.thetaBins = (int) Math.round(2 * band / thetaStep) + 1;
+        this.sin = new int[thetaBins];
+        this.cos = new int[thetaBins];
+        for (int t = 0; t < thetaBins; t++) {
+            double rad = Math.toRadians(angleOf(t));
+            sin[t] = (int) Math.round(Math.sin(rad) * (1 << FIXED_SHIFT));
+            cos[t] = (int) Math.round(Math.cos(rad) * (1 << FIXED_SHIFT));
+        }
+    }
+
+    /**
+     * 提取边缘点并投票
+     *
+     * @param edges     单通道8位边缘图，非0为边缘
+     * @param maxPoints 参与投票的边缘点上限，超出时等步长抽样；0 表示不限
+     * @return 边缘点总数
+     */
+    int accumulate(Mat edges, int maxPoints) {
+        int width = edges.cols();
+        int height = edges.rows();
+        if (width >= MAX_SIZE || height >= MAX_SIZE) {
+            throw new IllegalArgumentException("边缘图过大: " + width + "x" + height);
+        }
+        int total = width * height;
+        if (pixels.length < total) {
+            pixels = new byte[total];
+        }
+        edges.get(0, 0, pixels);
+
+        int count = 0;
+        for (int i = 0; i < total; i++) {
+            if (pixels[i] != 0) {
+                count++;
+            }
+        }
+        stride = maxPoints > 0 && count > maxPoints ? (count + maxPoints - 1) / maxPoints : 1;
+        int used = (count + stride - 1) / stride;
+        if (xs.length < used) {
+            xs = new int[used];
+            ys = new int[used];
+        }
+        int n = 0;
+        int seen = 0;
+        for (int i = 0; i < total; i++) {
+            if (pixels[i] != 0 && seen++ % stride == 0) {
+                xs[n] = i % width;
+                ys[n] = i / width;
+                n++;
+            }
+        }
+
+        // ρ 的取值范围：y·cos φ ∈ [0, height)，-x·sin φ ∈ [-width·sin(band), width·sin(band)]
+        double maxShift = width * Math.sin(Math.toRadians(band));
+        rhoOffset = (int) Math.ceil(maxShift) + 1;
+        rhoBins = height + 2 * rhoOffset + 1;
+        int cells = thetaBins * rhoBins;
+        if (votes.length < cells) {
+            votes = new int[cells];
+        } else {
+            Arrays.fill(votes, 0, cells, 0);
+        }
+
+        // θ 在外层：一行 ρ 计数常驻缓存，坐标数组顺序读
+        // 定点运算：ρ·2^16 = y·cos - x·sin，加上 rhoOffset 后非负，右移即向下取整
+        int shift = (rhoOffset << FIXED_SHIFT) + (1 << (FIXED_SHIFT - 1));
+        for (int t = 0, base = 0; t < thetaBins; t++, base += rhoBins) {
+            int c = cos[t];
+            int s = sin[t];
+            for (int p = 0; p < n; p++) {
+                votes[base + ((ys[p] * c - xs[p] * s + shift) >> FIXED_SHIFT)]++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 找出票数不少于 minLength(按还原后的票数计)的局部极大单元
+     *
+     * @return 直线数
+     */
+    int collectLines(int minLength, LineConsumer consumer) {
+        int minVotes = Math.max(1, minLength / stride);
+        int lines = 0;
+        for (int t = 0; t < thetaBins; t++) {
+            int base = t * rhoBins;
+            for (int r = 1; r < rhoBins - 1; r++) {
+                int v = votes[base + r];
+                if (v < minVotes || !isLocalMax(t, r, v)) {
+                    continue;
+                }
+                double angle = angleOf(t);
+                if (t > 0 && t < thetaBins - 1) {
+                    double l = votes[base - rhoBins + r];
+                    double h = votes[base + rhoBins + r];
+                    double curvature = l - 2.0 * v + h;
+                    if (curvature < 0) {
+                        angle += thetaStep * 0.5 * (l - h) / curvature;
+                    }
+                }
+                consumer.accept(angle, (double) v * stride);
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 3×3 邻域极大；相等时只保留 (θ, ρ) 最小的一个，避免平台区重复计数
+     */
+    private boolean isLocalMax(int t, int r, int v) {
+        for (int dt = -1; dt <= 1; dt++) {
+            int tt = t + dt;
+            if (tt < 0 || tt >= thetaBins) {
+                continue;
+            }
+            int base = tt * rhoBins;
+            for (int dr = -1; dr <= 1; dr++) {
+                if (dt == 0 && dr == 0) {
+                    continue;
+                }
+                int other = votes[base + r + dr];
+                boolean before = dt < 0 || (dt == 0 && dr < 0);
+                if (other > v || (other == v && before)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private double angleOf(int t) {
+        return -band + t * thetaStep;
+    }
+}
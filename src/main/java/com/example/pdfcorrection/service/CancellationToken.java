@@ -0,0 +1,28 @@
+package com.example.pdfcorrection.service;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * 任务取消令牌
+ *
+ * <p>由请求线程置位，任务线程因失败退出时也会置位；页面各阶段(渲染、检测循环、编码)在检查点读取，
+ * 置位后检查点抛出 {@link CancellationException}，尚未开始的阶段直接跳过
+ */
+class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("任务已取消");
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.pdfcorrection.service;
+
+import com.example.pdfcorrection.model.JobState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 异步矫正任务
+ *
+ * <p>由任务线程更新状态和逐页角度，由请求线程读取；状态迁移：
+ * QUEUED → RUNNING → SUCCEEDED / FAILED / CANCELLED，QUEUED 也可直接迁移到 CANCELLED
+ */
+public class CorrectionJob {
+
+    private final String id;
+    private final String originalFileName;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile JobState state = JobState.QUEUED;
+    private final CancellationToken cancellation = new CancellationToken();
+    private volatile long finishedAt;
+    private volatile int totalPages;
+    private volatile String resultFileName;
+    private volatile String errorMessage;
+    private volatile JobAdmissionService.AdmittedJob<?> admittedJob;
+    private final List<Double> pageAngles = new ArrayList<>();
+
+    CorrectionJob(String id, String originalFileName) {
+        this.id = id;
+        this.originalFileName = originalFileName;
+    }
+
+    // ==================== 状态迁移 ====================
+
+    void attach(JobAdmissionService.AdmittedJob<?> admittedJob) {
+        this.admittedJob = admittedJob;
+    }
+
+    synchronized void markRunning() {
+        if (state == JobState.QUEUED) {
+            state = JobState.RUNNING;
+        }
+    }
+
+    /**
+     * 任务仍在排队时执行动作，返回是否执行
+     *
+     * <p>与 {@link #markRunning()} 互斥：动作中发布的排队事件不会晚于任务开始后的事件
+     */
+    synchronized boolean whileQueued(Runnable action) {
+        if (state != JobState.QUEUED) {
+            return false;
+        }
+        action.run();
+        return true;
+    }
+
+    void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    synchronized void markSucceeded(String resultFileName) {
+        this.resultFileName = resultFileName;
+        finish(JobState.SUCCEEDED);
+    }
+
+    synchronized void markFailed(String errorMessage) {
+        this.errorMessage = errorMessage;
+        finish(JobState.FAILED);
+    }
+
+    synchronized void markCancelled() {
+        finish(JobState.CANCELLED);
+    }
+
+    private void finish(JobState finalState) {
+        if (!state.isFinished()) {
+            state = finalState;
+            finishedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 请求取消：排队中的任务不再运行；运行中的任务在页面之间以及
+     * 各页的渲染、检测、编码检查点响应，在途页面随之放弃
+     */
+    void requestCancel() {
+        cancellation.cancel();
+        JobAdmissionService.AdmittedJob<?> admitted = admittedJob;
+        if (admitted != null) {
+            admitted.cancel(false);
+        }
+    }
+
+    synchronized void addPageAngle(double angle) {
+        pageAngles.add(angle);
+    }
+
+    // ==================== 查询 ====================
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOriginalFileName() {
+        return originalFileName;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public JobState getState() {
+        return state;
+    }
+
+    public boolean isCancelRequested() {
+        return cancellation.isCancelled();
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public synchronized int getCompletedPages() {
+        return pageAngles.size();
+    }
+
+    public synchronized List<Double> getPageAngles() {
+        return new ArrayList<>(pageAngles);
+    }
+
+    public String getResultFileName() {
+        return resultFileName;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    CancellationToken getCancellationToken() {
+        return cancellation;
+    }
+
+    JobAdmissionService.AdmittedJob<?> getAdmittedJob() {
+        return admittedJob;
+    }
+}
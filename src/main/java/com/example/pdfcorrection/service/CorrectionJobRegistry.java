@@ -0,0 +1,74 @@
+package com.example.pdfcorrection.service;
+
+import com.example.pdfcorrection.model.JobState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 矫正任务登记表
+ *
+ * <p>保存所有异步任务的状态，已结束的任务在保留期后清除
+ */
+@Service
+@Slf4j
+public class CorrectionJobRegistry {
+
+    @Value("${pdf.correction.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Autowired
+    private ProgressService progressService;
+
+    private final ConcurrentHashMap<String, CorrectionJob> jobs = new ConcurrentHashMap<>();
+
+    public CorrectionJob register(String originalFileName) {
+        CorrectionJob job = new CorrectionJob(UUID.randomUUID().toString(), originalFileName);
+        jobs.put(job.getId(), job);
+        progressService.open(job.getId());
+        return job;
+    }
+
+    public Optional<CorrectionJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public void remove(String jobId) {
+        jobs.remove(jobId);
+    }
+
+    public List<CorrectionJob> findByState(JobState state) {
+        return jobs.values().stream()
+                .filter(job -> job.getState() == state)
+                .sorted(Comparator.comparingLong(CorrectionJob::getCreatedAt))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 清除超过保留期的已结束任务
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeExpired() {
+        long expireBefore = System.currentTimeMillis() - retentionMinutes * 60_000;
+        int purged = 0;
+        for (CorrectionJob job : jobs.values()) {
+            if (job.getState().isFinished() && job.getFinishedAt() < expireBefore) {
+                jobs.remove(job.getId());
+                progressService.release(job.getId());
+                purged++;
+            }
+        }
+        if (purged > 0) {
+            log.debug("已清除 {} 个过期任务", purged);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.pdfcorrection.service;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * 倾斜检测热路径的线程级工作区
+ *
+ * <p>每个工作线程(页面线程池和 radonPool)各持有一份，在线程生命周期内复用：
+ * <ul>
+ *   <li>中间 Mat：尺寸和类型不变时 OpenCV 直接复用已有缓冲，不再逐页分配本地内存；二值图等整页结果见 {@link PageAnalysis}</li>
+ *   <li>近水平 Hough 累加器 {@link BandHoughAccumulator} 的边缘点坐标和计数数组</li>
+ *   <li>角度投票用 {@link AngleHistogram}，不再装箱到 Map&lt;Double, Double&gt;</li>
+ *   <li>Radon 投影的坐标和直方图缓冲 {@link RadonProjection.Scratch}，金字塔每层一份</li>
+ *   <li>文本掩码的连通域标签图、统计表和按标签查表的数组</li>
+ * </ul>
+ * 常驻内存约为每线程一张检测分辨率灰度图的几倍，不计入页面内存预算。
+ * 同一线程上的调用不会嵌套使用同一字段，因此无需同步
+ */
+final class DetectionWorkspace {
+
+    // Hough
+    final Mat houghHorizontal = new Mat();
+    final BandHoughAccumulator houghAccumulator;
+    final AngleHistogram houghBuckets;
+    private Mat houghKernel;
+    private int houghKernelWidth;
+
+    // Radon
+    final RadonProjection.Scratch radonScratch = new RadonProjection.Scratch();
+    final AngleHistogram radonBuckets;
+    final AngleHistogram voteBuckets;
+
+    // 文本掩码
+    final Mat maskBinary = new Mat();
+    final Mat maskLabels = new Mat();
+    final Mat maskStats = new Mat();
+    final Mat maskCentroids = new Mat();
+    private int[] componentStats = new int[0];
+    private byte[] componentLookup = new byte[0];
+    private int[] labelPixels = new int[0];
+    private byte[] maskPixels = new byte[0];
+
+    DetectionWorkspace(double angleRange, double houghBand, double houghThetaStep,
+                       double houghBucket, double radonBucket) {
+        this.houghAccumulator = new BandHoughAccumulator(houghBand, houghThetaStep);
+        this.houghBuckets = new AngleHistogram(angleRange, houghBucket);
+        this.radonBuckets = new AngleHistogram(angleRange, radonBucket);
+        this.voteBuckets = new AngleHistogram(angleRange, radonBucket);
+    }
+
+    /**
+     * 宽 width、高1的矩形结构元素，宽度不变时复用
+     */
+    Mat houghKernel(int width) {
+        if (houghKernel == null || houghKernelWidth != width) {
+            if (houghKernel != null) {
+                houghKernel.release();
+            }
+            houghKernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(width, 1));
+            houghKernelWidth = width;
+        }
+        return houghKernel;
+    }
+
+    /**
+     * 连通域统计表缓冲，至少 size 个元素
+     */
+    int[] componentStats(int size) {
+        if (componentStats.length < size) {
+            componentStats = new int[Math.max(size, componentStats.length * 2)];
+        }
+        return componentStats;
+    }
+
+    /**
+     * 按标签查表的掩码值缓冲，至少 size 个元素
+     */
+    byte[] componentLookup(int size) {
+        if (componentLookup.length < size) {
+            componentLookup = new byte[Math.max(size, componentLookup.length * 2)];
+        }
+        return componentLookup;
+    }
+
+    /**
+     * 标签图像素缓冲，至少 size 个元素
+     */
+    int[] labelPixels(int size) {
+        if (labelPixels.length < size) {
+            labelPixels = new int[size];
+        }
+        return labelPixels;
+    }
+
+    /**
+     * 掩码像素缓冲，至少 size 个元素
+     */
+    byte[] maskPixels(int size) {
+        if (maskPixels.length < size) {
+            maskPixels = new byte[size];
+        }
+        return maskPixels;
+    }
+}
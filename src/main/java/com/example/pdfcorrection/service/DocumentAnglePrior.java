@@ -0,0 +1,126 @@
+package com.example.pdfcorrection.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 文档级倾斜角先验
+ *
+ * <p>同一扫描批次的页面倾斜角通常很接近。这里累计已完成页面中置信度足够的角度，
+ * 维护中位数和 MAD(中位数绝对偏差)作为稳健估计；样本数达到 minSamples 后，
+ * 后续页面只在 中位数 ± (k·σ + margin) 的窗口内搜索，σ = 1.4826·MAD。
+ * 窗口内结果不可靠时由调用方退回全范围重新搜索。每页只计入一次，
+ * 种子页在流水线中再次检测时不重复计入。
+ *
+ * <p>样本按页面完成顺序计入，某页检测时用的窗口取决于此前已完成哪些页面，
+ * 因此并发调度不同，结果也可能不同。整页峰值落在窗口内时，窗口内搜索与全范围搜索
+ * 取同一组格点，结果一致；只有峰值在窗口外、而窗口内又找到一个看似可靠
+ * (置信度足够且不贴边)的次峰时，该页才会随调度顺序变化。需要逐次完全一致的结果时
+ * 关闭先验(pdf.correction.prior.enabled=false)。
+ *
+ * <p>窗口只作用于 {@link SkewDetector#usesWindow()} 为true的检测器，目前只有 Radon；
+ * FFT 和 Hough 始终在全范围检测。默认级联的页面由 FFT 定论，Radon 不运行，
+ * 先验和种子页都省不下时间；因此默认关闭，只在以 Radon 为主的级联中才可能有用
+ * (AnglePriorBenchmark：40页同批次文档，各级联开关先验耗时和误差都在噪声内)。
+ *
+ * <p>线程安全：页面并发完成，记录和取窗口都在同一把锁内进行
+ */
+class DocumentAnglePrior {
+
+    private static final double MAD_TO_SIGMA = 1.4826;
+
+    private final double range;
+    private final int minSamples;
+    private final double sigmas;
+    private final double margin;
+    private final double minHalfWidth;
+
+    private double[] samples = new double[16];
+    private int count;
+    private final BitSet recorded = new BitSet();
+    private AngleWindow window;
+
+    private final AtomicInteger windowed = new AtomicInteger();
+    private final AtomicInteger widened = new AtomicInteger();
+
+    /**
+     * @param range        全范围半宽(度)
+     * @param minSamples   开始收紧窗口所需的样本数
+     * @param sigmas       窗口半宽包含的标准差倍数
+     * @param margin       窗口半宽的固定余量(度)
+     * @param minHalfWidth 窗口半宽下限(度)
+     */
+    DocumentAnglePrior(double range, int minSamples, double sigmas, double margin, double minHalfWidth) {
+        this.range = range;
+        this.minSamples = Math.max(1, minSamples);
+        this.sigmas = sigmas;
+        this.margin = margin;
+        this.minHalfWidth = minHalfWidth;
+        this.window = AngleWindow.full(range);
+    }
+
+    /**
+     * 当前页面应使用的搜索窗口
+     */
+    synchronized AngleWindow window() {
+        if (!window.isFull()) {
+            windowed.incrementAndGet();
+        }
+        return window;
+    }
+
+    /**
+     * 记录一页的检测结果，并据此更新窗口；同一页只记录第一次
+     */
+    synchronized void record(int pageIndex, double angle) {
+        if (Double.isNaN(angle) || recorded.get(pageIndex)) {
+            return;
+        }
+        recorded.set(pageIndex);
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = angle;
+        if (count >= minSamples) {
+            double[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            double median = median(sorted);
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = Math.abs(sorted[i] - median);
+            }
+            Arrays.sort(sorted);
+            double sigma = MAD_TO_SIGMA * median(sorted);
+            double halfWidth = Math.max(minHalfWidth, sigmas * sigma + margin);
+            window = AngleWindow.around(median, halfWidth, range);
+        }
+    }
+
+    /**
+     * 记录一次窗口内结果不可靠、退回全范围的搜索
+     */
+    void recordWidened() {
+        widened.incrementAndGet();
+    }
+
+    int getWindowedPages() {
+        return windowed.get();
+    }
+
+    int getWidenedSearches() {
+        return widened.get();
+    }
+
+    synchronized int getSampleCount() {
+        return count;
+    }
+
+    synchronized AngleWindow currentWindow() {
+        return window;
+    }
+
+    private static double median(double[] sorted) {
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2.0;
+    }
+}
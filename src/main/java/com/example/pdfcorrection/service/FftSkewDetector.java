@@ -0,0 +1,214 @@
+package com.example.pdfcorrection.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opencv.core.*;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 频域倾斜检测器
+ *
+ * <p>对检测分辨率的页面做一次 DFT：墨迹图去均值后乘 Hanning 窗(抑制页边造成的十字谱线)，
+ * 零填充为方阵，取 log(1 + |F|)。文本行方向为 φ 时能量集中在与之垂直的
+ * (-sin φ, cos φ) 方向上，因此沿候选方向对对数幅度谱做径向线积分，积分最大处即为倾斜角。
+ *
+ * <p>先按 {@link #COARSE_STEP} 扫描 ±angleRange，再在最佳角两侧按 {@link #FINE_STEP}
+ * 细扫并做抛物线插值。线积分次数固定，耗时由 DFT 决定，不随目标精度增长
+ */
+@Slf4j
+class FftSkewDetector implements SkewDetector {
+
+    private static final double COARSE_STEP = 0.25;
+    private static final double FINE_STEP = 0.05;
+    // 参与积分的半径范围(相对谱边长)：排除直流附近的版面低频和接近奈奎斯特的噪声
+    private static final double MIN_RADIUS = 0.02;
+    private static final double MAX_RADIUS = 0.45;
+    // 计算显著性时，与峰值相距不足该角度的方向视为同一个峰
+    private static final double PEAK_EXCLUSION = 1.0;
+
+    private final double angleRange;
+    private final int cost;
+
+    FftSkewDetector(double angleRange, int cost) {
+        this.angleRange = angleRange;
+        this.cost = cost;
+    }
+
+    @Override
+    public String name() {
+        return "fft";
+    }
+
+    @Override
+    public int cost() {
+        return cost;
+    }
+
+    @Override
+    public Estimate detect(PageAnalysis page, AngleWindow window, PageDeadline deadline) {
+        // 耗时由 DFT 决定，收窄窗口省不了多少；始终扫描全范围，显著性才可比
+        Spectrum spectrum = logMagnitudeSpectrum(page.gray());
+        if (spectrum == null) {
+            return Estimate.none();
+        }
+        deadline.checkpoint();
+
+        int rMin = Math.max(2, (int) (spectrum.size * MIN_RADIUS));
+        int rMax = (int) (spectrum.size * MAX_RADIUS);
+
+        // 1. 粗扫
+        int count = (int) Math.round(2 * angleRange / COARSE_STEP) + 1;
+        double[] profile = new double[count];
+        int best = 0;
+        for (int i = 0; i < count; i++) {
+            profile[i] = spectrum.lineIntegral(-angleRange + i * COARSE_STEP, rMin, rMax);
+            if (profile[i] > profile[best]) {
+                best = i;
+            }
+        }
+        deadline.checkpoint();
+
+        // 2. 细扫 + 抛物线插值
+        double center = -angleRange + best * COARSE_STEP;
+        int fineCount = (int) Math.round(2 * COARSE_STEP / FINE_STEP) + 1;
+        double[] fine = new double[fineCount];
+        int fineBest = 0;
+        for (int i = 0; i < fineCount; i++) {
+            fine[i] = spectrum.lineIntegral(center - COARSE_STEP + i * FINE_STEP, rMin, rMax);
+            if (fine[i] > fine[fineBest]) {
+                fineBest = i;
+            }
+        }
+        double angle = center - COARSE_STEP + fineBest * FINE_STEP;
+        if (fineBest > 0 && fineBest < fineCount - 1) {
+            double l = fine[fineBest - 1];
+            double c = fine[fineBest];
+            double r = fine[fineBest + 1];
+            double curvature = l - 2 * c + r;
+            if (curvature < 0) {
+                angle += FINE_STEP * 0.5 * (l - r) / curvature;
+            }
+        }
+
+        // 评分：峰值方向比最弱方向每个采样点高出的对数幅度，量级与Radon评分相近
+        double min = Arrays.stream(profile).min().orElse(profile[best]);
+        double score = (profile[best] - min) / (2.0 * (rMax - rMin + 1));
+        double confidence = prominence(profile, best);
+        log.debug("FFT检测完成: angle={}°, score={}, confidence={}, 谱边长={}",
+                String.format("%.2f", angle),
+                String.format("%.3f", score),
+                String.format("%.2f", confidence),
+                spectrum.size);
+        return new Estimate(angle, score, confidence);
+    }
+
+    /**
+     * 峰值显著性：峰值高出 ±PEAK_EXCLUSION 以外最高方向的部分，占峰值与谷值之差的比例。
+     * 文本页通常在0.7以上，无明显行结构的页面接近0
+     */
+    private static double prominence(double[] profile, int best) {
+        double min = profile[best];
+        double side = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < profile.length; i++) {
+            min = Math.min(min, profile[i]);
+            if (Math.abs(i - best) * COARSE_STEP >= PEAK_EXCLUSION) {
+                side = Math.max(side, profile[i]);
+            }
+        }
+        double range = profile[best] - min;
+        if (range <= 0 || side == Double.NEGATIVE_INFINITY) {
+            return 0.0;
+        }
+        return Math.max(0.0, Math.min(1.0, (profile[best] - side) / range));
+    }
+
+    /**
+     * 墨迹图 → 去均值 → Hanning 窗 → 零填充方阵 → DFT → log(1 + 幅度)
+     */
+    private static Spectrum logMagnitudeSpectrum(Mat gray) {
+        if (gray.empty() || gray.cols() < 16 || gray.rows() < 16) {
+            return null;
+        }
+        Mat ink = new Mat();
+        Mat window = new Mat();
+        Mat padded = new Mat();
+        Mat complex = new Mat();
+        Mat magnitude = new Mat();
+        List<Mat> planes = new ArrayList<>(2);
+        try {
+            // 墨迹为正：ink = 255 - gray，去均值后零填充不会引入台阶
+            gray.convertTo(ink, CvType.CV_32F, -1.0, 255.0);
+            Core.subtract(ink, Core.mean(ink), ink);
+            Imgproc.createHanningWindow(window, ink.size(), CvType.CV_32F);
+            Core.multiply(ink, window, ink);
+
+            int n = Core.getOptimalDFTSize(Math.max(ink.cols(), ink.rows()));
+            int padX = n - ink.cols();
+            int padY = n - ink.rows();
+            Core.copyMakeBorder(ink, padded, padY / 2, padY - padY / 2,
+                    padX / 2, padX - padX / 2, Core.BORDER_CONSTANT, Scalar.all(0));
+
+            Core.dft(padded, complex, Core.DFT_COMPLEX_OUTPUT, 0);
+            Core.split(complex, planes);
+            Core.magnitude(planes.get(0), planes.get(1), magnitude);
+            Core.add(magnitude, Scalar.all(1.0), magnitude);
+            Core.log(magnitude, magnitude);
+
+            float[] data = new float[n * n];
+            magnitude.get(0, 0, data);
+            return new Spectrum(data, n);
+        } finally {
+            ink.release();
+            window.release();
+            padded.release();
+            complex.release();
+            magnitude.release();
+            planes.forEach(Mat::release);
+        }
+    }
+
+    /**
+     * 未做象限移位的 n×n 对数幅度谱，直流在(0, 0)，按周期取样
+     */
+    private static class Spectrum {
+        final float[] data;
+        final int size;
+
+        Spectrum(float[] data, int size) {
+            this.data = data;
+            this.size = size;
+        }
+
+        /**
+         * 沿文本行方向为 angle 时的谱线方向，对 [rMin, rMax] 两侧做线积分
+         */
+        double lineIntegral(double angle, int rMin, int rMax) {
+            double rad = Math.toRadians(angle);
+            double ux = -Math.sin(rad);
+            double uy = Math.cos(rad);
+            double sum = 0.0;
+            for (int k = rMin; k <= rMax; k++) {
+                sum += sample(ux * k, uy * k) + sample(-ux * k, -uy * k);
+            }
+            return sum;
+        }
+
+        private double sample(double x, double y) {
+            int x0 = (int) Math.floor(x);
+            int y0 = (int) Math.floor(y);
+            double fx = x - x0;
+            double fy = y - y0;
+            int xa = Math.floorMod(x0, size);
+            int xb = Math.floorMod(x0 + 1, size);
+            int ya = Math.floorMod(y0, size) * size;
+            int yb = Math.floorMod(y0 + 1, size) * size;
+            return data[ya + xa] * (1 - fx) * (1 - fy)
+                    + data[ya + xb] * fx * (1 - fy)
+                    + data[yb + xa] * (1 - fx) * fy
+                    + data[yb + xb] * fx * fy;
+        }
+    }
+}
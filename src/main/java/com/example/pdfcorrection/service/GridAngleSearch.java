@@ -0,0 +1,56 @@
+package com.example.pdfcorrection.service;
+
+/**
+ * 固定网格搜索
+ *
+ * <p>两阶段：
+ * <ol>
+ *   <li>粗搜索: 按 coarseStep 扫描搜索窗口</li>
+ *   <li>精搜索: 按 fineStep 扫描 [最佳角度±0.25°]</li>
+ * </ol>
+ * 全部在全分辨率上评分，默认参数下约100次评分
+ */
+class GridAngleSearch implements AngleSearchStrategy {
+
+    private static final double FINE_WINDOW = 0.25;
+
+    private final double coarseStep;
+    private final double fineStep;
+
+    GridAngleSearch(double coarseStep, double fineStep) {
+        this.coarseStep = coarseStep;
+        this.fineStep = fineStep;
+    }
+
+    @Override
+    public Result search(RadonProjection projection, AngleWindow window, PageDeadline deadline) {
+        double bestAngle = window.center;
+        double maxScore = -1.0;
+        int evaluations = 0;
+
+        for (double a = window.firstGridPoint(coarseStep); a <= window.max() + 1e-9; a += coarseStep) {
+            deadline.checkpoint();
+            double score = projection.score(a);
+            evaluations++;
+            if (score > maxScore) {
+                maxScore = score;
+                bestAngle = a;
+            }
+        }
+
+        double fineStart = window.clamp(bestAngle - FINE_WINDOW);
+        double fineEnd = window.clamp(bestAngle + FINE_WINDOW);
+
+        for (double a = fineStart; a <= fineEnd; a += fineStep) {
+            deadline.checkpoint();
+            double score = projection.score(a);
+            evaluations++;
+            if (score > maxScore) {
+                maxScore = score;
+                bestAngle = a;
+            }
+        }
+
+        return new Result(bestAngle, maxScore, evaluations);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.pdfcorrection.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 矫正任务准入控制
+ *
+ * <p>位于页面线程池之前的任务级闸门：
+ * <ul>
+ *   <li>同时运行的文档数受 max-concurrent-jobs 限制，每个文档在专用任务线程上编排流水线</li>
+ *   <li>超出的任务进入有界等待队列，可查询排队位置</li>
+ *   <li>队列满时立即拒绝并给出 Retry-After，绝不让请求线程执行流水线工作</li>
+ * </ul>
+ */
+@Service
+@Slf4j
+public class JobAdmissionService {
+
+    @Value("${pdf.correction.admission.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs;
+
+    @Value("${pdf.correction.admission.max-queued-jobs:8}")
+    private int maxQueuedJobs;
+
+    @Value("${pdf.correction.admission.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger(1);
+
+    private ThreadPoolExecutor jobExecutor;
+
+    @PostConstruct
+    public void init() {
+        int workers = Math.max(1, maxConcurrentJobs);
+        ThreadFactory threadFactory = r -> {
+            Thread t = new Thread(r, "pdf-correction-job-" + THREAD_NUMBER.getAndIncrement());
+            t.setDaemon(false);
+            return t;
+        };
+
+        jobExecutor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, maxQueuedJobs)),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        log.info("任务准入控制已启用: 并发文档 {}, 等待队列 {}", workers, maxQueuedJobs);
+    }
+
+    /**
+     * 提交任务，满载时立即拒绝
+     *
+     * @param job       任务主体
+     * @param onDiscard 任务在开始前被取消时执行的清理动作，可为null
+     * @throws AdmissionRejectedException 等待队列已满或服务正在关闭
+     */
+    public <T> AdmittedJob<T> submit(Callable<T> job, Runnable onDiscard) {
+        AdmittedJob<T> admitted = new AdmittedJob<>(job, onDiscard);
+        // 已取消的排队任务不应占用队列容量
+        jobExecutor.purge();
+        try {
+            jobExecutor.execute(admitted);
+        } catch (RejectedExecutionException e) {
+            boolean shuttingDown = jobExecutor.isShutdown();
+            log.warn("任务被拒绝: 运行中 {}, 排队 {}",
+                    jobExecutor.getActiveCount(), jobExecutor.getQueue().size());
+            throw new AdmissionRejectedException(
+                    shuttingDown ? "服务正在关闭" : "服务繁忙，请稍后重试",
+                    retryAfterSeconds, shuttingDown);
+        }
+        return admitted;
+    }
+
+    /**
+     * 查询任务的排队位置
+     *
+     * @return 1 表示下一个运行；0 表示已开始运行或已结束
+     */
+    public int queuePosition(AdmittedJob<?> job) {
+        if (job.started || job.isDone()) {
+            return 0;
+        }
+        int position = 1;
+        for (Runnable queued : jobExecutor.getQueue()) {
+            if (queued == job) {
+                return position;
+            }
+            if (!(queued instanceof Future && ((Future<?>) queued).isCancelled())) {
+                position++;
+            }
+        }
+        return 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("正在关闭任务线程池...");
+        jobExecutor.shutdown();
+        try {
+            if (!jobExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("任务线程池未能在10秒内关闭，强制关闭");
+                jobExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            jobExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 已准入的任务
+     */
+    public static class AdmittedJob<T> extends FutureTask<T> {
+        private final Runnable onDiscard;
+        private final AtomicBoolean invoked;
+        private volatile boolean started;
+
+        AdmittedJob(Callable<T> callable, Runnable onDiscard) {
+            this(callable, onDiscard, new AtomicBoolean());
+        }
+
+        private AdmittedJob(Callable<T> callable, Runnable onDiscard, AtomicBoolean invoked) {
+            super(() -> {
+                invoked.set(true);
+                return callable.call();
+            });
+            this.onDiscard = onDiscard;
+            this.invoked = invoked;
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            // 任务主体从未执行就被取消：由提交方清理已准备的资源
+            if (isCancelled() && !invoked.get() && onDiscard != null) {
+                onDiscard.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.pdfcorrection.service;
+
+import ai.onnxruntime.*;
+import lombok.extern.slf4j.Slf4j;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于 ONNX Runtime 的 CNN 倾斜角回归检测器
+ *
+ * <p>模型约定：输入 float32 [N, 1, S, S]，页面按长边等比缩放到 S 后居中补白，
+ * 取值为墨迹强度 (255 - gray) / 255；输出 [N, 2] 为(角度°, 置信度[0, 1])，
+ * 只有一列时置信度按 {@link #DEFAULT_CONFIDENCE} 计。
+ *
+ * <p>并发页面的请求进入同一队列，由若干批处理线程各自持有一个 CPU 执行的
+ * {@link OrtSession}，每次取出最多 batchSize 个页面拼成一个张量做一次前向推理。
+ * 会话的 intra-op 线程数可配置且关闭自旋等待，避免空转抢占页面线程池的CPU
+ */
+@Slf4j
+class OnnxSkewDetector implements SkewDetector, AutoCloseable {
+
+    private static final double DEFAULT_CONFIDENCE = 0.5;
+    private static final long POLL_INTERVAL_MS = 20;
+
+    private final OrtEnvironment env;
+    private final List<OrtSession> sessions = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final String inputName;
+    private final int inputSize;
+    private final int batchSize;
+    private final long batchWaitNanos;
+    private final int cost;
+    private volatile boolean closed;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedPages = new AtomicLong();
+
+    /**
+     * @param modelPath        ONNX 模型文件
+     * @param inputSize        模型输入边长，模型输入形状固定时以模型为准
+     * @param batchSize        单次推理的最大页数
+     * @param batchWaitMs      凑批的最长等待时间
+     * @param sessionCount     会话(批处理线程)数
+     * @param intraOpThreads   每个会话的算子内线程数
+     * @param cost             级联中的相对成本
+     */
+    OnnxSkewDetector(String modelPath, int inputSize, int batchSize, long batchWaitMs,
+                     int sessionCount, int intraOpThreads, int cost) throws OrtException {
+        this.env = OrtEnvironment.getEnvironment();
+        this.batchSize = Math.max(1, batchSize);
+        this.batchWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, batchWaitMs));
+        this.cost = cost;
+
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setIntraOpNumThreads(Math.max(1, intraOpThreads));
+            options.setInterOpNumThreads(1);
+            options.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.SEQUENTIAL);
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            options.addConfigEntry("session.intra_op.allow_spinning", "0");
+            for (int i = 0; i < Math.max(1, sessionCount); i++) {
+                sessions.add(env.createSession(modelPath, options));
+            }
+        } catch (OrtException e) {
+            closeSessions();
+            throw e;
+        }
+
+        OrtSession first = sessions.get(0);
+        this.inputName = first.getInputNames().iterator().next();
+        this.inputSize = resolveInputSize(first.getInputInfo().get(inputName), inputSize);
+
+        for (int i = 0; i < sessions.size(); i++) {
+            OrtSession session = sessions.get(i);
+            Thread t = new Thread(() -> batchLoop(session), "pdf-cnn-batch-" + (i + 1));
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+        log.info("CNN倾斜模型已加载: {}, 输入 {}x{}, 批大小 {}, 会话 {}, intra-op线程 {}",
+                modelPath, this.inputSize, this.inputSize, this.batchSize,
+                sessions.size(), Math.max(1, intraOpThreads));
+    }
+
+    /**
+     * 模型输入的 H、W 为固定值时以模型为准，动态维度时使用配置值
+     */
+    private static int resolveInputSize(NodeInfo info, int configured) {
+        if (info != null && info.getInfo() instanceof TensorInfo) {
+            long[] shape = ((TensorInfo) info.getInfo()).getShape();
+            if (shape.length == 4 && shape[2] > 0 && shape[2] == shape[3]) {
+                return (int) shape[2];
+            }
+        }
+        return configured;
+    }
+
+    @Override
+    public String name() {
+        return "cnn";
+    }
+
+    @Override
+    public int cost() {
+        return cost;
+    }
+
+    @Override
+    public Estimate detect(PageAnalysis page, AngleWindow window, PageDeadline deadline) {
+        if (closed) {
+            return Estimate.none();
+        }
+        Request request = new Request(toInput(page.gray()));
+        queue.add(request);
+        if (closed) {
+            // close() 可能在上面的检查之后、入队之前已清空队列，这个请求不会再有人处理
+            request.result.complete(Estimate.none());
+        }
+        try {
+            while (true) {
+                try {
+                    deadline.checkpoint();
+                } catch (RuntimeException e) {
+                    // 超时或取消：已入队的请求由批处理线程跳过
+                    request.result.cancel(false);
+                    throw e;
+                }
+                try {
+                    return request.result.get(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException ignored) {
+                    // 继续检查时限
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("CNN推理等待被中断");
+        } catch (ExecutionException e) {
+            log.error("CNN推理失败", e.getCause());
+            return Estimate.none();
+        }
+    }
+
+    /**
+     * 等比缩放到 inputSize 并居中补白，转为墨迹强度
+     */
+    private float[] toInput(Mat gray) {
+        Mat resized = new Mat();
+        Mat canvas = new Mat(inputSize, inputSize, CvType.CV_8UC1, new Scalar(255));
+        try {
+            double scale = (double) inputSize / Math.max(gray.cols(), gray.rows());
+            int w = Math.max(1, Math.min(inputSize, (int) Math.round(gray.cols() * scale)));
+            int h = Math.max(1, Math.min(inputSize, (int) Math.round(gray.rows() * scale)));
+            Imgproc.resize(gray, resized, new Size(w, h), 0, 0, Imgproc.INTER_AREA);
+            Mat roi = canvas.submat(new Rect((inputSize - w) / 2, (inputSize - h) / 2, w, h));
+            resized.copyTo(roi);
+            roi.release();
+
+            byte[] pixels = new byte[inputSize * inputSize];
+            canvas.get(0, 0, pixels);
+            float[] input = new float[pixels.length];
+            for (int i = 0; i < pixels.length; i++) {
+                input[i] = (255 - (pixels[i] & 0xFF)) / 255f;
+            }
+            return input;
+        } finally {
+            resized.release();
+            canvas.release();
+        }
+    }
+
+    /**
+     * 批处理线程：阻塞取第一个请求，随后在等待窗口内凑满一批再推理
+     */
+    private void batchLoop(OrtSession session) {
+        int plane = inputSize * inputSize;
+        FloatBuffer buffer = ByteBuffer.allocateDirect(batchSize * plane * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        List<Request> batch = new ArrayList<>(batchSize);
+
+        while (!closed) {
+            try {
+                batch.clear();
+                Request first = queue.take();
+                if (!first.result.isDone()) {
+                    batch.add(first);
+                }
+                long waitUntil = System.nanoTime() + batchWaitNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = waitUntil - System.nanoTime();
+                    Request next = remaining > 0 ?
+                            queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (!next.result.isDone()) {
+                        batch.add(next);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    infer(session, buffer, batch);
+                }
+            } catch (InterruptedException e) {
+                // close() 在凑批时中断：已取出的请求不在队列里，close() 清不到，在这里结束
+                for (Request r : batch) {
+                    r.result.complete(Estimate.none());
+                }
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                for (Request r : batch) {
+                    r.result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void infer(OrtSession session, FloatBuffer buffer, List<Request> batch) throws OrtException {
+        int n = batch.size();
+        buffer.clear();
+        for (Request r : batch) {
+            buffer.put(r.input);
+        }
+        buffer.flip();
+
+        long[] shape = {n, 1, inputSize, inputSize};
+        try (OnnxTensor tensor = OnnxTensor.createTensor(env, buffer, shape);
+             OrtSession.Result output = session.run(Collections.singletonMap(inputName, tensor))) {
+            float[][] values = (float[][]) output.get(0).getValue();
+            for (int i = 0; i < n; i++) {
+                float[] row = values[i];
+                double angle = row[0];
+                double confidence = row.length > 1 ?
+                        Math.max(0.0, Math.min(1.0, row[1])) : DEFAULT_CONFIDENCE;
+                batch.get(i).result.complete(Double.isFinite(angle) ?
+                        new Estimate(angle, confidence, confidence) : Estimate.none());
+            }
+        }
+        long total = batches.incrementAndGet();
+        long pages = batchedPages.addAndGet(n);
+        if (log.isDebugEnabled()) {
+            log.debug("CNN推理: 本批 {} 页, 平均每批 {} 页", n, String.format("%.1f", (double) pages / total));
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        workers.forEach(Thread::interrupt);
+        for (Thread t : workers) {
+            try {
+                t.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        Request pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.complete(Estimate.none());
+        }
+        closeSessions();
+    }
+
+    private void closeSessions() {
+        for (OrtSession session : sessions) {
+            try {
+                session.close();
+            } catch (OrtException e) {
+                log.warn("关闭ONNX会话失败", e);
+            }
+        }
+        sessions.clear();
+    }
+
+    private static class Request {
+        final float[] input;
+        final CompletableFuture<Estimate> result = new CompletableFuture<>();
+
+        Request(float[] input) {
+            this.input = input;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.pdfcorrection.service;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+/**
+ * 按位压缩的二值图(1 bit/像素)
+ *
+ * <p>每行占 {@link #wordsPerRow()} 个 long，第 x 列在该行第 x/64 个字的第 x%64 位(低位在左)，
+ * 行尾多余的位恒为0。相比 0/255 的8位 Mat，读一遍只需八分之一的内存带宽：
+ * 前景计数是逐字 {@link Long#bitCount}，截取块是逐字移位拼接，
+ * 不再逐像素判断。实例创建后只读，可被多个线程同时读取
+ */
+final class PackedBinary {
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    private PackedBinary(int width, int height, long[] words) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = wordsFor(width);
+        this.words = words;
+    }
+
+    /**
+     * 压缩整张二值图，非0为前景
+     */
+    static PackedBinary of(Mat binary) {
+        if (binary.type() != CvType.CV_8UC1) {
+            throw new IllegalArgumentException("需要单通道8位二值图: " + CvType.typeToString(binary.type()));
+        }
+        int width = binary.cols();
+        int height = binary.rows();
+        int stride = wordsFor(width);
+        long[] words = new long[stride * height];
+        byte[] row = new byte[width];
+        for (int y = 0; y < height; y++) {
+            binary.get(y, 0, row);
+            int base = y * stride;
+            for (int x = 0; x < width; x++) {
+                if (row[x] != 0) {
+                    words[base + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+        return new PackedBinary(width, height, words);
+    }
+
+    /**
+     * 包装已按本类布局压缩好的行，words 的所有权转交给实例
+     */
+    static PackedBinary wrap(int width, int height, long[] words) {
+        if (words.length != wordsFor(width) * height) {
+            throw new IllegalArgumentException("压缩行长度不符: " + words.length);
+        }
+        return new PackedBinary(width, height, words);
+    }
+
+    static int wordsFor(int width) {
+        return (width + 63) >>> 6;
+    }
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return height;
+    }
+
+    int wordsPerRow() {
+        return wordsPerRow;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    /**
+     * 矩形内前景像素数
+     */
+    long count(Rect roi) {
+        long total = 0;
+        for (int y = roi.y, end = roi.y + roi.height; y < end; y++) {
+            total += countRow(words, y * wordsPerRow, roi.x, roi.x + roi.width);
+        }
+        return total;
+    }
+
+    /**
+     * 矩形内前景像素比例
+     */
+    double density(Rect roi) {
+        return count(roi) / (double) ((long) roi.width * roi.height);
+    }
+
+    /**
+     * 整图前景像素比例
+     */
+    double density() {
+        long total = 0;
+        for (long w : words) {
+            total += Long.bitCount(w);
+        }
+        return total / (double) ((long) width * height);
+    }
+
+    /**
+     * 把矩形区域复制为从第0位开始对齐的行，写入 target(每行 wordsFor(roi.width) 个字)
+     *
+     * @return target 中的前景像素数
+     */
+    long copyAligned(Rect roi, long[] target) {
+        int stride = wordsFor(roi.width);
+        int shift = roi.x & 63;
+        int tail = roi.width & 63;
+        long lastMask = tail == 0 ? -1L : (1L << tail) - 1;
+        long total = 0;
+        for (int r = 0; r < roi.height; r++) {
+            int src = (roi.y + r) * wordsPerRow + (roi.x >>> 6);
+            int srcEnd = (roi.y + r + 1) * wordsPerRow;
+            int dst = r * stride;
+            for (int i = 0; i < stride; i++) {
+                long w = words[src + i] >>> shift;
+                if (shift != 0 && src + i + 1 < srcEnd) {
+                    w |= words[src + i + 1] << (64 - shift);
+                }
+                if (i == stride - 1) {
+                    w &= lastMask;
+                }
+                target[dst + i] = w;
+                total += Long.bitCount(w);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 一行中 [from, to) 列的前景像素数
+     *
+     * @param rowBase 该行第一个字的下标
+     */
+    static int countRow(long[] words, int rowBase, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long headMask = -1L << from;
+        long tailMask = -1L >>> (63 - ((to - 1) & 63));
+        if (first == last) {
+            return Long.bitCount(words[rowBase + first] & headMask & tailMask);
+        }
+        int count = Long.bitCount(words[rowBase + first] & headMask);
+        for (int i = first + 1; i < last; i++) {
+            count += Long.bitCount(words[rowBase + i]);
+        }
+        return count + Long.bitCount(words[rowBase + last] & tailMask);
+    }
+}
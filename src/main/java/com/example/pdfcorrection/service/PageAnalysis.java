@@ -0,0 +1,203 @@
+package com.example.pdfcorrection.service;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.function.Function;
+
+/**
+ * 单页检测的共享中间结果
+ *
+ * <p>级联中的各检测器都从同一份检测分辨率灰度图出发，原先各自重复做整页 Otsu 二值化、
+ * 统计前景和积分图，块级 Radon 还对每个重叠块再二值化一次。这里按需计算并缓存：
+ * <ul>
+ *   <li>{@link #gray()}：检测分辨率灰度图</li>
+ *   <li>{@link #ink()}：整页 Otsu 反相二值图(前景=255)及其前景计数、按位压缩形式，三者在 Java 侧一次算出</li>
+ *   <li>{@link #textMask()} / {@link #textInk()}：文本掩码及其像素数，以及限制在掩码内的前景</li>
+ *   <li>{@link #upscaledInk()}：全图 Radon 使用的2倍放大二值图，沿用整页 Otsu 阈值</li>
+ * </ul>
+ * 块级检测直接在按位压缩的整页二值图上截取块、统计墨迹，不再逐块阈值化。
+ *
+ * <p>实例只在一个页面的检测过程中使用，由检测线程创建并在结束时 {@link #close()} 一次性释放全部 Mat；
+ * 块级 Radon 并行评估时多个线程只读已计算好的结果，需要的中间结果在分发前先取出
+ */
+class PageAnalysis implements AutoCloseable {
+
+    private static final double UPSCALE = 2.0;
+
+    private final Mat gray;
+    private final Function<Mat, Mat> textMaskBuilder;
+
+    private Foreground ink;
+    private double otsuThreshold;
+    private Foreground textMask;
+    private boolean textMaskBuilt;
+    private Foreground textInk;
+    private Foreground upscaledInk;
+
+    /**
+     * @param gray            检测分辨率灰度图，所有权转交给本实例
+     * @param textMaskBuilder 由灰度图生成文本掩码(255=文本)，无法生成时返回null
+     */
+    PageAnalysis(Mat gray, Function<Mat, Mat> textMaskBuilder) {
+        this.gray = gray;
+        this.textMaskBuilder = textMaskBuilder;
+    }
+
+    Mat gray() {
+        return gray;
+    }
+
+    /**
+     * 整页 Otsu 反相二值化结果
+     *
+     * <p>灰度图一次读入 Java 后由 {@link PixelKernels} 统计直方图、求 Otsu 阈值，
+     * 阈值化时同时得到0/255二值图、按位压缩形式和前景计数，
+     * 省去随后逐行读回二值图压缩和 countNonZero 的 JNI 调用。阈值与 THRESH_OTSU 一致
+     */
+    synchronized Foreground ink() {
+        if (ink == null) {
+            int width = gray.cols();
+            int height = gray.rows();
+            byte[] pixels = new byte[width * height];
+            gray.get(0, 0, pixels);
+
+            PixelKernels kernels = PixelKernels.get();
+            int[] hist = new int[256];
+            kernels.histogram(pixels, pixels.length, hist);
+            otsuThreshold = PixelKernels.otsuThreshold(hist, pixels.length);
+
+            // 原地写回二值图：阈值化逐像素先读后写，输入输出可以是同一数组
+            long[] words = new long[PackedBinary.wordsFor(width) * height];
+            long count = kernels.thresholdInv(pixels, width, height, (int) otsuThreshold, pixels, words);
+            Mat binary = new Mat(height, width, CvType.CV_8UC1);
+            binary.put(0, 0, pixels);
+            ink = new Foreground(binary, count, PackedBinary.wrap(width, height, words));
+        }
+        return ink;
+    }
+
+    /**
+     * 文本掩码(255=文本)，无法生成时为null
+     */
+    synchronized Foreground textMask() {
+        if (!textMaskBuilt) {
+            Mat mask = textMaskBuilder.apply(gray);
+            textMask = mask != null ? new Foreground(mask) : null;
+            textMaskBuilt = true;
+        }
+        return textMask;
+    }
+
+    /**
+     * 整页前景与文本掩码的交集，没有文本掩码时为null
+     */
+    synchronized Foreground textInk() {
+        if (textInk == null) {
+            Foreground mask = textMask();
+            if (mask == null) {
+                return null;
+            }
+            Mat binary = new Mat();
+            Core.bitwise_and(ink().binary, mask.binary, binary);
+            textInk = new Foreground(binary);
+        }
+        return textInk;
+    }
+
+    /**
+     * 灰度图双三次放大2倍后按整页 Otsu 阈值二值化，供全图高精度 Radon 使用
+     */
+    synchronized Foreground upscaledInk() {
+        if (upscaledInk == null) {
+            ink();
+            Mat up = new Mat();
+            try {
+                Imgproc.resize(gray, up, new Size(), UPSCALE, UPSCALE, Imgproc.INTER_CUBIC);
+                Imgproc.threshold(up, up, otsuThreshold, 255, Imgproc.THRESH_BINARY_INV);
+                upscaledInk = new Foreground(up);
+                up = null;
+            } finally {
+                if (up != null) {
+                    up.release();
+                }
+            }
+        }
+        return upscaledInk;
+    }
+
+    /**
+     * 释放全部缓存的 Mat(含灰度图)
+     */
+    @Override
+    public synchronized void close() {
+        release(ink);
+        release(textInk);
+        release(upscaledInk);
+        release(textMask);
+        gray.release();
+        ink = null;
+        textInk = null;
+        upscaledInk = null;
+        textMask = null;
+    }
+
+    private static void release(Foreground foreground) {
+        if (foreground != null) {
+            foreground.binary.release();
+        }
+    }
+
+    /**
+     * 一张二值图(前景=255)及按需计算的前景统计
+     */
+    static class Foreground {
+        final Mat binary;
+        private long pixels = -1;
+        private PackedBinary packed;
+
+        Foreground(Mat binary) {
+            this.binary = binary;
+        }
+
+        /**
+         * @param pixels 已知的前景像素数
+         * @param packed 已压缩好的同一张二值图
+         */
+        Foreground(Mat binary, long pixels, PackedBinary packed) {
+            this.binary = binary;
+            this.pixels = pixels;
+            this.packed = packed;
+        }
+
+        /**
+         * 前景像素数
+         */
+        synchronized long pixels() {
+            if (pixels < 0) {
+                pixels = Core.countNonZero(binary);
+            }
+            return pixels;
+        }
+
+        /**
+         * 前景像素比例
+         */
+        double ratio() {
+            return pixels() / (double) binary.total();
+        }
+
+        /**
+         * 按位压缩的二值图，块的墨迹统计和 Radon 投影都在其上进行
+         */
+        synchronized PackedBinary packed() {
+            if (packed == null) {
+                packed = PackedBinary.of(binary);
+            }
+            return packed;
+        }
+    }
+}
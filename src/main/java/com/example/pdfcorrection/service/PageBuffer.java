@@ -0,0 +1,226 @@
+package com.example.pdfcorrection.service;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 池化的页面像素缓冲
+ *
+ * <p>一块直接内存(direct ByteBuffer)，{@link #mat()} 通过 Mat 的缓冲构造函数直接视作图像，
+ * OpenCV 在其上读写，不再另行分配原生内存。BufferedImage 的栅格只能是 Java 数组，
+ * 与缓冲之间各是一次整块内存复制：
+ * <ul>
+ *   <li>TYPE_INT_RGB/ARGB：按本机字节序整块复制为4通道 Mat(小端上通道依次为 B、G、R、X)</li>
+ *   <li>TYPE_BYTE_GRAY、TYPE_3BYTE_BGR：逐字节复制为1/3通道 Mat</li>
+ * </ul>
+ * 省去了原先的 Graphics2D 重绘、Mat.put，以及 Mat.get 到临时数组后再 arraycopy。
+ *
+ * <p>缓冲从 {@link Pool} 借出，{@link #close()} 时归还；实例只在一个线程内使用
+ */
+final class PageBuffer implements AutoCloseable {
+
+    private final Pool pool;
+    private final ByteBuffer buffer;
+    private final int rows;
+    private final int cols;
+    private final int type;
+    private Mat mat;
+    private boolean closed;
+
+    private PageBuffer(Pool pool, ByteBuffer buffer, int rows, int cols, int type) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.rows = rows;
+        this.cols = cols;
+        this.type = type;
+    }
+
+    /**
+     * 图像能否直接与缓冲整块复制：类型受支持且栅格恰好覆盖整个数组(不是子图)
+     */
+    static boolean supports(BufferedImage image) {
+        if (matType(image.getType()) < 0) {
+            return false;
+        }
+        DataBuffer data = image.getRaster().getDataBuffer();
+        long pixels = (long) image.getWidth() * image.getHeight();
+        if (data instanceof DataBufferInt) {
+            return data.getNumBanks() == 1 && ((DataBufferInt) data).getData().length == pixels;
+        }
+        if (data instanceof DataBufferByte) {
+            int channels = CvType.channels(matType(image.getType()));
+            return data.getNumBanks() == 1 && ((DataBufferByte) data).getData().length == pixels * channels;
+        }
+        return false;
+    }
+
+    /**
+     * BufferedImage 类型对应的 Mat 类型，不支持时返回-1
+     */
+    private static int matType(int imageType) {
+        switch (imageType) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+                return CvType.CV_8UC4;
+            case BufferedImage.TYPE_3BYTE_BGR:
+                return CvType.CV_8UC3;
+            case BufferedImage.TYPE_BYTE_GRAY:
+                return CvType.CV_8UC1;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * 缓冲上的 Mat 视图，首次调用时创建，{@link #close()} 时释放
+     */
+    Mat mat() {
+        if (mat == null) {
+            mat = new Mat(rows, cols, type, buffer);
+        }
+        return mat;
+    }
+
+    /**
+     * 底层缓冲，按行连续存放，第 y 行从 y·cols·通道数 开始
+     */
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    int type() {
+        return type;
+    }
+
+    /**
+     * 把图像像素整块复制进缓冲，图像尺寸和类型须与缓冲一致
+     */
+    void load(BufferedImage image) {
+        checkShape(image);
+        DataBuffer data = image.getRaster().getDataBuffer();
+        if (data instanceof DataBufferInt) {
+            buffer.asIntBuffer().put(((DataBufferInt) data).getData());
+        } else {
+            buffer.put(0, ((DataBufferByte) data).getData());
+        }
+    }
+
+    /**
+     * 把缓冲整块复制回图像栅格，图像尺寸和类型须与缓冲一致
+     */
+    void store(BufferedImage image) {
+        checkShape(image);
+        DataBuffer data = image.getRaster().getDataBuffer();
+        if (data instanceof DataBufferInt) {
+            buffer.asIntBuffer().get(((DataBufferInt) data).getData());
+        } else {
+            buffer.get(0, ((DataBufferByte) data).getData());
+        }
+    }
+
+    private void checkShape(BufferedImage image) {
+        if (image.getWidth() != cols || image.getHeight() != rows
+                || matType(image.getType()) != type || !supports(image)) {
+            throw new IllegalArgumentException("图像与缓冲不匹配: " + image.getWidth() + "x" + image.getHeight()
+                    + " type=" + image.getType() + ", 缓冲 " + cols + "x" + rows + " " + CvType.typeToString(type));
+        }
+    }
+
+    /**
+     * 释放 Mat 视图并把缓冲归还池；重复调用无效果，缓冲不会被归还两次
+     * (否则同一块内存会同时借给两个页面)
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (mat != null) {
+            mat.release();
+            mat = null;
+        }
+        pool.release(buffer);
+    }
+
+    /**
+     * 直接内存缓冲池(全局，所有任务共享)
+     *
+     * <p>同一文档的页面尺寸通常相同，归还的缓冲多半能原样复用。借出时取容量够用且
+     * 不超过所需 5/4 的最小缓冲，避免小页面长期占着大缓冲；池中闲置总量超过上限时不再回收，
+     * 交由 GC 释放。借出中的缓冲计入 {@link PageMemoryBudget} 的单页估计，闲置缓冲不计
+     */
+    static class Pool {
+        private final long maxIdleBytes;
+        private final List<ByteBuffer> idle = new ArrayList<>();
+        private long idleBytes;
+
+        /**
+         * @param maxIdleBytes 闲置缓冲总字节上限，0 表示不复用
+         */
+        Pool(long maxIdleBytes) {
+            this.maxIdleBytes = Math.max(0, maxIdleBytes);
+        }
+
+        /**
+         * 借出 rows×cols 的缓冲，内容未初始化
+         */
+        PageBuffer acquire(int rows, int cols, int type) {
+            long bytes = (long) rows * cols * CvType.ELEM_SIZE(type);
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("页面过大: " + cols + "x" + rows);
+            }
+            return new PageBuffer(this, take((int) bytes), rows, cols, type);
+        }
+
+        /**
+         * 借出与图像同尺寸的缓冲并复制像素
+         */
+        PageBuffer load(BufferedImage image) {
+            PageBuffer page = acquire(image.getHeight(), image.getWidth(), matType(image.getType()));
+            try {
+                page.load(image);
+                return page;
+            } catch (RuntimeException e) {
+                page.close();
+                throw e;
+            }
+        }
+
+        private synchronized ByteBuffer take(int bytes) {
+            int best = -1;
+            long limit = bytes + bytes / 4L;
+            for (int i = 0; i < idle.size(); i++) {
+                int capacity = idle.get(i).capacity();
+                if (capacity >= bytes && capacity <= limit
+                        && (best < 0 || capacity < idle.get(best).capacity())) {
+                    best = i;
+                }
+            }
+            if (best >= 0) {
+                ByteBuffer buffer = idle.remove(best);
+                idleBytes -= buffer.capacity();
+                return buffer;
+            }
+            // 本机字节序：int 像素与字节之间的整块复制不需要逐个交换字节
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+
+        private synchronized void release(ByteBuffer buffer) {
+            if (idleBytes + buffer.capacity() <= maxIdleBytes) {
+                buffer.clear();
+                idle.add(buffer);
+                idleBytes += buffer.capacity();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.pdfcorrection.service;
+
+/**
+ * 单页处理时限
+ *
+ * <p>按页面各阶段的实际执行时间累计，不含在线程池中排队的时间；
+ * 超过预算后检查点抛出 {@link PageTimeoutException}，由调用方降级：
+ * 渲染超时的页面原样复制，检测超时则退回已完成的廉价检测结果或0°。
+ * 同时携带任务的取消令牌，检查点优先响应取消。
+ *
+ * <p>同一页面的各阶段先后执行，任一时刻只有一个线程写入
+ */
+class PageDeadline {
+
+    private static final CancellationToken NEVER_CANCELLED = new CancellationToken();
+
+    private final CancellationToken token;
+    private final long budgetNanos;
+    private volatile long spentNanos;
+    private volatile long stageStartNanos;
+    private volatile boolean inStage;
+
+    /**
+     * @param token    任务取消令牌
+     * @param budgetMs 时限(毫秒)，不大于0表示不限时
+     */
+    PageDeadline(CancellationToken token, long budgetMs) {
+        this.token = token;
+        this.budgetNanos = budgetMs > 0 ? budgetMs * 1_000_000L : 0;
+    }
+
+    /**
+     * 不可取消、不限时(单独检测页面时使用)
+     */
+    static PageDeadline unbounded() {
+        return new PageDeadline(NEVER_CANCELLED, 0);
+    }
+
+    void beginStage() {
+        stageStartNanos = System.nanoTime();
+        inStage = true;
+    }
+
+    void endStage() {
+        if (inStage) {
+            spentNanos += System.nanoTime() - stageStartNanos;
+            inStage = false;
+        }
+    }
+
+    boolean isExpired() {
+        if (budgetNanos <= 0) {
+            return false;
+        }
+        long running = inStage ? System.nanoTime() - stageStartNanos : 0;
+        return spentNanos + running > budgetNanos;
+    }
+
+    /**
+     * 只检查任务取消
+     */
+    void checkCancelled() {
+        token.throwIfCancelled();
+    }
+
+    boolean isCancelled() {
+        return token.isCancelled();
+    }
+
+    /**
+     * 检查任务取消和页面时限
+     */
+    void checkpoint() {
+        token.throwIfCancelled();
+        if (isExpired()) {
+            throw new PageTimeoutException("页面处理超过时限 " + budgetNanos / 1_000_000L + " ms");
+        }
+    }
+}
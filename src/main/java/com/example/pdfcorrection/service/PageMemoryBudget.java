@@ -0,0 +1,129 @@
+package com.example.pdfcorrection.service;
+
+/**
+ * 在途页面预算(全局，所有任务共享)
+ *
+ * <p>按字节限制同时处理的页面：每页进入流水线前按其栅格大小预估内存占用
+ * (Java 堆中的渲染图，以及 OpenCV 使用的池化直接内存缓冲)，预算不足时暂缓提交。
+ * 单页预估超过总预算时按总预算计，保证大页面也能独占通过。
+ * 页面确认无需全分辨率处理后可提前归还部分字节，页数占用保留到页面写出。
+ * 另设在途页数上限，防止大量小页面挤占页面线程池队列。
+ */
+class PageMemoryBudget {
+
+    /**
+     * 每像素在流水线中的峰值字节数估计：
+     * 渲染图(3BYTE_BGR 3B，保持原尺寸时矫正结果写回其中) + 源缓冲(3B) + 旋转结果缓冲(3B)，
+     * 见 {@link PageBuffer}；preserve-content 模式另有一张扩大后的结果图
+     */
+    static final int BYTES_PER_PIXEL_IN_FLIGHT = 9;
+
+    /**
+     * 检测阶段每像素峰值字节数估计(检测分辨率)：
+     * 灰度渲染图(1B) + 检测灰度图缓冲(1B) + 二值化时读回 Java 的灰度像素(1B)
+     * + {@link PageAnalysis} 缓存的二值图、文本掩码、文本前景(3B)
+     * + 全图Radon的2倍放大二值图(4B) + 各二值图的按位压缩形式(不足1B)
+     */
+    static final int DETECTION_BYTES_PER_PIXEL = 11;
+
+    private final long capacity;
+    private final int maxPages;
+    private long inUse;
+    private int pagesInUse;
+
+    PageMemoryBudget(long capacityBytes, int maxPages) {
+        this.capacity = Math.max(1, capacityBytes);
+        this.maxPages = Math.max(1, maxPages);
+    }
+
+    /**
+     * 预估单页在流水线中的内存占用
+     *
+     * @param widthPt  页面宽度(点)
+     * @param heightPt 页面高度(点)
+     * @param dpi      渲染DPI
+     */
+    static long estimatePageBytes(float widthPt, float heightPt, int dpi) {
+        return pixels(widthPt, heightPt, dpi) * BYTES_PER_PIXEL_IN_FLIGHT;
+    }
+
+    /**
+     * 预估单页检测阶段的内存占用
+     *
+     * @param dpi 检测渲染DPI
+     */
+    static long estimateDetectionBytes(float widthPt, float heightPt, float dpi) {
+        return pixels(widthPt, heightPt, dpi) * DETECTION_BYTES_PER_PIXEL;
+    }
+
+    private static long pixels(float widthPt, float heightPt, float dpi) {
+        long widthPx = (long) Math.ceil(widthPt / 72.0 * dpi);
+        long heightPx = (long) Math.ceil(heightPt / 72.0 * dpi);
+        return widthPx * heightPx;
+    }
+
+    /**
+     * 尝试占用预算，不足时立即返回
+     *
+     * @return 实际占用的字节数(超过总预算的页面按总预算计)，失败返回-1
+     */
+    synchronized long tryAcquire(long bytes) {
+        long cost = Math.min(bytes, capacity);
+        if (!fits(cost)) {
+            return -1;
+        }
+        inUse += cost;
+        pagesInUse++;
+        return cost;
+    }
+
+    /**
+     * 阻塞直到预算可用
+     *
+     * <p>仅应在调用方没有在途页面时使用，避免持有预算的同时等待
+     *
+     * @return 实际占用的字节数
+     */
+    synchronized long acquire(long bytes) throws InterruptedException {
+        long cost = Math.min(bytes, capacity);
+        while (!fits(cost)) {
+            wait();
+        }
+        inUse += cost;
+        pagesInUse++;
+        return cost;
+    }
+
+    synchronized void release(long cost) {
+        inUse = Math.max(0, inUse - cost);
+        pagesInUse = Math.max(0, pagesInUse - 1);
+        notifyAll();
+    }
+
+    /**
+     * 提前归还部分字节，不释放页数占用
+     */
+    synchronized void releaseBytes(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        inUse = Math.max(0, inUse - bytes);
+        notifyAll();
+    }
+
+    private boolean fits(long cost) {
+        return inUse + cost <= capacity && pagesInUse < maxPages;
+    }
+
+    synchronized long getInUse() {
+        return inUse;
+    }
+
+    synchronized int getPagesInUse() {
+        return pagesInUse;
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+}
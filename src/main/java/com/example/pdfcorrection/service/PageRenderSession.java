@@ -0,0 +1,129 @@
+package com.example.pdfcorrection.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.PageDrawer;
+import org.apache.pdfbox.rendering.PageDrawerParameters;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单个文档的并行渲染会话
+ *
+ * <p>PDFBox 的 PDDocument 不是线程安全的，多线程共享同一文档渲染会破坏解析状态。
+ * 会话把输入文件一次性读入只读字节缓冲，每个工作线程首次渲染时基于该缓冲
+ * 懒加载自己的文档句柄，并在后续页面中复用同一个 PDFRenderer。
+ * 会话关闭时统一释放所有句柄。
+ *
+ * <p>渲染器在解释内容流时定期检查页面时限和任务取消，
+ * 超大矢量页面不会无限期占用工作线程。
+ */
+@Slf4j
+class PageRenderSession implements AutoCloseable {
+
+    private final byte[] pdfBytes;
+    private final ConcurrentHashMap<Thread, WorkerHandle> handles = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    PageRenderSession(Path inputPath) throws IOException {
+        this.pdfBytes = Files.readAllBytes(inputPath);
+    }
+
+    /**
+     * 获取当前线程专属的文档句柄，首次调用时打开
+     */
+    WorkerHandle currentHandle() {
+        if (closed) {
+            throw new IllegalStateException("渲染会话已关闭");
+        }
+        return handles.computeIfAbsent(Thread.currentThread(), t -> openHandle());
+    }
+
+    private WorkerHandle openHandle() {
+        try {
+            // PDFBox 直接在传入的字节数组上读取，各句柄共享同一块缓冲
+            PDDocument document = PDDocument.load(pdfBytes);
+            DeadlineAwareRenderer renderer = new DeadlineAwareRenderer(document);
+            renderer.setSubsamplingAllowed(false);
+            log.trace("线程 {} 打开渲染句柄", Thread.currentThread().getName());
+            return new WorkerHandle(document, renderer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开渲染句柄失败", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        handles.values().forEach(handle -> {
+            try {
+                handle.document.close();
+            } catch (IOException e) {
+                log.warn("关闭渲染句柄失败", e);
+            }
+        });
+        log.debug("渲染会话已关闭, 共 {} 个工作句柄", handles.size());
+        handles.clear();
+    }
+
+    /**
+     * 工作线程独占的文档句柄
+     */
+    static class WorkerHandle {
+        final PDDocument document;
+        final DeadlineAwareRenderer renderer;
+
+        WorkerHandle(PDDocument document, DeadlineAwareRenderer renderer) {
+            this.document = document;
+            this.renderer = renderer;
+        }
+    }
+
+    /**
+     * 每执行一定数量的内容流操作符检查一次页面时限的渲染器
+     *
+     * <p>检查点抛出的异常不是 IOException，不会被 PDFBox 的操作符容错吞掉，
+     * 会直接终止本页渲染
+     */
+    static class DeadlineAwareRenderer extends PDFRenderer {
+        private static final int CHECK_INTERVAL = 256;
+
+        // 句柄为单线程独占，无需同步
+        private PageDeadline deadline;
+
+        DeadlineAwareRenderer(PDDocument document) {
+            super(document);
+        }
+
+        void setDeadline(PageDeadline deadline) {
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected PageDrawer createPageDrawer(PageDrawerParameters parameters) throws IOException {
+            PageDeadline pageDeadline = deadline;
+            if (pageDeadline == null) {
+                return super.createPageDrawer(parameters);
+            }
+            return new PageDrawer(parameters) {
+                private int operations;
+
+                @Override
+                protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+                    if (++operations % CHECK_INTERVAL == 0) {
+                        pageDeadline.checkpoint();
+                    }
+                    super.processOperator(operator, operands);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.pdfcorrection.service;
+
+/**
+ * 单页处理超过时限，由各阶段捕获后降级处理
+ */
+class PageTimeoutException extends RuntimeException {
+
+    PageTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.pdfcorrection.service;
+
+/**
+ * 纯 Java 像素内核：RGB 转灰度、灰度直方图与 Otsu 阈值、反相阈值化并按位压缩、投影的一阶/二阶矩
+ *
+ * <p>用于像素已经在 Java 数组里的场合，省去一次 JNI 往返和临时 Mat。
+ * 本类是标量实现；启动参数带 {@code --add-modules jdk.incubator.vector} 且首选向量宽度不少于256位时
+ * {@link #get()} 返回基于 Vector API 的 {@link VectorPixelKernels}，否则退回标量实现。
+ * 两种实现结果一致，只有矩的浮点求和顺序不同，可能有末位舍入差异。实例无状态，可被多个线程共享
+ */
+class PixelKernels {
+
+    // 与 OpenCV 4.x COLOR_BGR2GRAY(8位)相同的 15 位定点系数：0.299 R + 0.587 G + 0.114 B，三者之和为 1 << 15
+    static final int GRAY_SHIFT = 15;
+    static final int GRAY_R = 9798;
+    static final int GRAY_G = 19235;
+    static final int GRAY_B = 3735;
+    static final int GRAY_ROUND = 1 << (GRAY_SHIFT - 1);
+
+    // OpenCV Otsu 跳过单侧概率低于 FLT_EPSILON 的阈值
+    private static final double FLT_EPSILON = Math.ulp(1.0f);
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_IMPL = "com.example.pdfcorrection.service.VectorPixelKernels";
+    private static final String BYTE_VECTOR = "jdk.incubator.vector.ByteVector";
+    private static final String VECTOR_SPECIES = "jdk.incubator.vector.VectorSpecies";
+    // 只有 SSE(128位)时向量化没有收益，int → byte 的收窄也没有对应的字节向量形状
+    private static final int MIN_VECTOR_BITS = 256;
+
+    private static final class Holder {
+        static final PixelKernels INSTANCE = load();
+    }
+
+    /**
+     * 当前运行时可用的最快实现
+     */
+    static PixelKernels get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 标量实现
+     */
+    static PixelKernels scalar() {
+        return new PixelKernels();
+    }
+
+    private static PixelKernels load() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return scalar();
+        }
+        try {
+            // 反射访问，未启用孵化模块时不会触碰 jdk.incubator.vector 中的类
+            if (preferredVectorBits() < MIN_VECTOR_BITS) {
+                return scalar();
+            }
+            return (PixelKernels) Class.forName(VECTOR_IMPL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // 包括类初始化失败(ExceptionInInitializerError)
+            return scalar();
+        }
+    }
+
+    /**
+     * ByteVector.SPECIES_PREFERRED 的位宽
+     */
+    private static int preferredVectorBits() throws ReflectiveOperationException {
+        Object species = Class.forName(BYTE_VECTOR).getField("SPECIES_PREFERRED").get(null);
+        return (Integer) Class.forName(VECTOR_SPECIES).getMethod("vectorBitSize").invoke(species);
+    }
+
+    /**
+     * 实现名称，用于日志
+     */
+    String name() {
+        return "scalar";
+    }
+
+    /**
+     * RGB(TYPE_INT_RGB 的打包像素，忽略高8位)转8位灰度
+     */
+    void rgbToGray(int[] rgb, int offset, int count, byte[] gray, int grayOffset) {
+        for (int i = 0; i < count; i++) {
+            gray[grayOffset + i] = toGray(rgb[offset + i]);
+        }
+    }
+
+    static byte toGray(int p) {
+        return (byte) ((((p >>> 16) & 0xff) * GRAY_R + ((p >>> 8) & 0xff) * GRAY_G
+                + (p & 0xff) * GRAY_B + GRAY_ROUND) >>> GRAY_SHIFT);
+    }
+
+    /**
+     * 统计灰度直方图，累加到 hist(长度256)
+     *
+     * <p>直方图是按值散射写入，Vector API 没有无冲突的散射累加，两种实现共用这里的标量版本：
+     * 四组计数器交替累加，避免相邻相同灰度值在同一计数器上形成写后读依赖
+     */
+    final void histogram(byte[] gray, int length, int[] hist) {
+        int[] h1 = new int[256];
+        int[] h2 = new int[256];
+        int[] h3 = new int[256];
+        int i = 0;
+        for (int end = length & ~3; i < end; i += 4) {
+            hist[gray[i] & 0xff]++;
+            h1[gray[i + 1] & 0xff]++;
+            h2[gray[i + 2] & 0xff]++;
+            h3[gray[i + 3] & 0xff]++;
+        }
+        for (; i < length; i++) {
+            hist[gray[i] & 0xff]++;
+        }
+        for (int v = 0; v < 256; v++) {
+            hist[v] += h1[v] + h2[v] + h3[v];
+        }
+    }
+
+    /**
+     * Otsu 阈值，与 Imgproc.threshold(..., THRESH_OTSU) 的返回值一致
+     *
+     * @param hist  灰度直方图
+     * @param total 像素总数
+     */
+    static int otsuThreshold(int[] hist, long total) {
+        double scale = 1.0 / total;
+        double mu = 0.0;
+        for (int i = 0; i < 256; i++) {
+            mu += i * (double) hist[i];
+        }
+        mu *= scale;
+
+        double mu1 = 0.0;
+        double q1 = 0.0;
+        double maxSigma = 0.0;
+        int threshold = 0;
+        for (int i = 0; i < 256; i++) {
+            double p = hist[i] * scale;
+            mu1 *= q1;
+            q1 += p;
+            double q2 = 1.0 - q1;
+            if (Math.min(q1, q2) < FLT_EPSILON || Math.max(q1, q2) > 1.0 - FLT_EPSILON) {
+                continue;
+            }
+            mu1 = (mu1 + i * p) / q1;
+            double mu2 = (mu - q1 * mu1) / q2;
+            double sigma = q1 * q2 * (mu1 - mu2) * (mu1 - mu2);
+            if (sigma > maxSigma) {
+                maxSigma = sigma;
+                threshold = i;
+            }
+        }
+        return threshold;
+    }
+
+    /**
+     * 反相阈值化(灰度 ≤ threshold 为前景)，同时写出 0/255 二值图和按位压缩的行
+     *
+     * @param binary 输出二值图，长度至少 width·height，可以就是 gray(原地阈值化)
+     * @param words  输出压缩行(布局同 {@link PackedBinary})，调用方清零
+     * @return 前景像素数
+     */
+    long thresholdInv(byte[] gray, int width, int height, int threshold, byte[] binary, long[] words) {
+        int stride = PackedBinary.wordsFor(width);
+        long count = 0;
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int base = y * stride;
+            for (int x = 0; x < width; x++) {
+                if ((gray[row + x] & 0xff) <= threshold) {
+                    binary[row + x] = (byte) 255;
+                    words[base + (x >>> 6)] |= 1L << x;
+                    count++;
+                } else {
+                    binary[row + x] = 0;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 前 n 个值的和与平方和，写入 out[0]、out[1]
+     */
+    void moments(double[] values, int n, double[] out) {
+        double sum = 0.0;
+        double sumSq = 0.0;
+        for (int i = 0; i < n; i++) {
+            double v = values[i];
+            sum += v;
+            sumSq += v * v;
+        }
+        out[0] = sum;
+        out[1] = sumSq;
+    }
+}
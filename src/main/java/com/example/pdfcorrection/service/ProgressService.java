@@ -1,46 +1,371 @@
 package com.example.pdfcorrection.service;
 
+import com.example.pdfcorrection.model.ProgressDispatchStats;
+import com.example.pdfcorrection.model.ProgressEvent;
+import com.example.pdfcorrection.model.ProgressPhase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * 任务级进度推送
+ *
+ * <p>每个任务一个订阅频道，任务登记时由 {@link #open} 建立，终止事件发出或任务注销时移除，
+ * 事件只发给订阅了该任务的客户端：
+ * <ul>
+ *   <li>阶段事件(开始、保存、完成等)立即入队</li>
+ *   <li>页面事件按任务合并，每个间隔只入队最新一条，SSE 流量与页数无关</li>
+ *   <li>新订阅者会先收到该任务的最近一条事件</li>
+ * </ul>
+ *
+ * <p>发布方只做入队，不接触网络：每个订阅者有独立的有界缓冲，
+ * 由专用派发线程异步写出。缓冲满时丢弃最旧的事件，相邻页面事件直接合并，
+ * 终止事件不会被丢弃。慢速或失联的客户端只会拖慢自己的缓冲，不会阻塞处理线程。
+ *
+ * <p>派发线程每次最多为一个订阅者写出 {@value #DRAIN_BATCH} 条事件，缓冲未空时重新排队，
+ * 多个订阅者轮流占用派发线程。待发送事件积压超过延迟阈值的订阅者视为跟不上，
+ * 直接关闭连接，客户端重连后会先收到最近一条事件。
+ */
 @Service
+@Slf4j
 public class ProgressService {
-    
-    private final CopyOnWriteArrayList<SseEmitter> emitters = new CopyOnWriteArrayList<>();
-    
-    public SseEmitter createEmitter() {
+
+    private static final int DRAIN_BATCH = 8;
+
+    @Value("${pdf.correction.progress.min-interval-ms:250}")
+    private long minIntervalMs;
+
+    @Value("${pdf.correction.progress.subscriber-buffer:64}")
+    private int subscriberBufferSize;
+
+    @Value("${pdf.correction.progress.dispatch-threads:2}")
+    private int dispatchThreads;
+
+    @Value("${pdf.correction.progress.delay-threshold-ms:1000}")
+    private long delayThresholdMs;
+
+    private final ConcurrentHashMap<String, CopyOnWriteArrayList<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ProgressEvent> pendingPageEvents = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ProgressEvent> lastEvents = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+    private ExecutorService dispatcher;
+
+    // 派发统计
+    private final AtomicInteger activeSubscribers = new AtomicInteger();
+    private final AtomicLong enqueuedEvents = new AtomicLong();
+    private final AtomicLong deliveredEvents = new AtomicLong();
+    private final AtomicLong coalescedEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong delayedEvents = new AtomicLong();
+    private final AtomicLong failedSends = new AtomicLong();
+    private final AtomicLong staleSubscribers = new AtomicLong();
+    private final AtomicLong maxDelayMs = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "progress-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushPageEvents,
+                minIntervalMs, minIntervalMs, TimeUnit.MILLISECONDS);
+
+        // 每个订阅者同一时刻最多一个派发任务，队列长度以订阅者数为上限
+        AtomicInteger threadIndex = new AtomicInteger();
+        dispatcher = Executors.newFixedThreadPool(Math.max(1, dispatchThreads), r -> {
+            Thread t = new Thread(r, "progress-dispatch-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        log.info("进度派发器初始化: 派发线程={}, 订阅缓冲={}, 延迟阈值={}ms",
+                dispatchThreads, subscriberBufferSize, delayThresholdMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * 建立任务的订阅频道(任务登记时调用)
+     */
+    public void open(String jobId) {
+        subscribers.putIfAbsent(jobId, new CopyOnWriteArrayList<>());
+    }
+
+    /**
+     * 订阅任务进度
+     *
+     * <p>频道不存在(任务未登记或已结束)时不新建频道：已结束的任务补发终止事件后结束连接，
+     * 未登记的任务直接结束连接
+     */
+    public SseEmitter subscribe(String jobId) {
         SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-        emitters.add(emitter);
-        
-        emitter.onCompletion(() -> emitters.remove(emitter));
-        emitter.onTimeout(() -> emitters.remove(emitter));
-        emitter.onError((error) -> emitters.remove(emitter));
-        
+        CopyOnWriteArrayList<Subscriber> channel = subscribers.get(jobId);
+        // 无频道时挂在一个独立列表上，关闭时从中移除即可
+        List<Subscriber> members = channel != null ? channel : new CopyOnWriteArrayList<>();
+        Subscriber subscriber = new Subscriber(members, emitter);
+        members.add(subscriber);
+        activeSubscribers.incrementAndGet();
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError((error) -> subscriber.close());
+
+        ProgressEvent last = lastEvents.get(jobId);
+        if (channel == null && (last == null || !last.getPhase().isTerminal())) {
+            subscriber.complete();
+        } else if (last != null) {
+            // 订阅期间发出的终止事件也在这里补发，订阅者写出后自行结束
+            subscriber.offer(last);
+        }
         return emitter;
     }
-    
-    public void sendProgress(String message) {
-        emitters.forEach(emitter -> {
-            try {
-                emitter.send(SseEmitter.event().name("progress").data(message));
-            } catch (IOException e) {
-                emitter.complete();
-                emitters.remove(emitter);
+
+    /**
+     * 发布阶段事件：先入队该任务尚未合并发送的页面事件，再入队本事件
+     */
+    public void publish(ProgressEvent event) {
+        String jobId = event.getJobId();
+        ProgressEvent pending = pendingPageEvents.remove(jobId);
+        if (pending != null) {
+            broadcast(pending);
+        }
+
+        lastEvents.put(jobId, event);
+        broadcast(event);
+
+        if (event.getPhase().isTerminal()) {
+            // 订阅者在发完终止事件后自行关闭
+            subscribers.remove(jobId);
+        }
+    }
+
+    /**
+     * 发布页面事件：只记录为待发送，由定时任务按间隔合并入队
+     */
+    public void publishPage(ProgressEvent event) {
+        pendingPageEvents.put(event.getJobId(), event);
+        lastEvents.put(event.getJobId(), event);
+    }
+
+    /**
+     * 释放任务的进度状态(任务注销时调用)
+     */
+    public void release(String jobId) {
+        pendingPageEvents.remove(jobId);
+        lastEvents.remove(jobId);
+        List<Subscriber> channel = subscribers.remove(jobId);
+        if (channel != null) {
+            channel.forEach(Subscriber::complete);
+        }
+    }
+
+    /**
+     * 派发统计快照
+     */
+    public ProgressDispatchStats getDispatchStats() {
+        return new ProgressDispatchStats(activeSubscribers.get(), enqueuedEvents.get(),
+                deliveredEvents.get(), coalescedEvents.get(), droppedEvents.get(),
+                delayedEvents.get(), failedSends.get(), staleSubscribers.get(), maxDelayMs.get(),
+                delayThresholdMs);
+    }
+
+    private void flushPageEvents() {
+        try {
+            for (String jobId : pendingPageEvents.keySet()) {
+                ProgressEvent event = pendingPageEvents.remove(jobId);
+                if (event != null) {
+                    broadcast(event);
+                }
             }
-        });
+        } catch (Exception e) {
+            log.warn("进度事件入队异常", e);
+        }
+    }
+
+    private void broadcast(ProgressEvent event) {
+        List<Subscriber> channel = subscribers.get(event.getJobId());
+        if (channel == null) {
+            return;
+        }
+        channel.forEach(subscriber -> subscriber.offer(event));
+    }
+
+    private void recordDelay(long delayMs) {
+        maxDelayMs.accumulateAndGet(delayMs, Math::max);
+        if (delayMs > delayThresholdMs) {
+            delayedEvents.incrementAndGet();
+        }
     }
-    
-    public void sendAngleDetected(double angle) {
-        emitters.forEach(emitter -> {
+
+    /**
+     * 单个订阅连接：有界缓冲 + 串行派发
+     */
+    private class Subscriber {
+        private final List<Subscriber> channel;
+        private final SseEmitter emitter;
+        private final ArrayDeque<QueuedEvent> buffer = new ArrayDeque<>();
+        private boolean draining;
+        private boolean finishing;
+        private boolean closed;
+
+        Subscriber(List<Subscriber> channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        /**
+         * 入队事件，调用方不做任何网络 IO
+         */
+        void offer(ProgressEvent event) {
+            synchronized (this) {
+                if (closed || finishing) {
+                    return;
+                }
+                enqueuedEvents.incrementAndGet();
+
+                QueuedEvent tail = buffer.peekLast();
+                if (event.getPhase() == ProgressPhase.PAGE
+                        && tail != null && tail.event.getPhase() == ProgressPhase.PAGE) {
+                    // 相邻的页面事件只保留最新一条，沿用旧事件的入队时间以如实统计延迟
+                    buffer.pollLast();
+                    buffer.addLast(new QueuedEvent(event, tail.enqueuedAt));
+                    coalescedEvents.incrementAndGet();
+                    return;
+                }
+
+                if (buffer.size() >= Math.max(1, subscriberBufferSize)) {
+                    buffer.pollFirst();
+                    droppedEvents.incrementAndGet();
+                    log.debug("订阅缓冲已满，丢弃最旧事件: job={}", event.getJobId());
+                }
+                buffer.addLast(new QueuedEvent(event, System.currentTimeMillis()));
+                finishing = event.getPhase().isTerminal();
+
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            schedule();
+        }
+
+        private void schedule() {
             try {
-                emitter.send(SseEmitter.event().name("angle").data(angle));
-            } catch (IOException e) {
-                emitter.complete();
-                emitters.remove(emitter);
+                dispatcher.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 应用关闭中
+                close();
             }
-        });
+        }
+
+        /**
+         * 在派发线程上依次写出缓冲中的事件，写满一批后让出派发线程
+         */
+        private void drain() {
+            for (int sent = 0; ; sent++) {
+                QueuedEvent next;
+                synchronized (this) {
+                    next = closed ? null : buffer.peekFirst();
+                    if (next == null) {
+                        draining = false;
+                        if (!finishing || closed) {
+                            return;
+                        }
+                    } else if (sent < DRAIN_BATCH) {
+                        buffer.pollFirst();
+                    }
+                }
+                if (next == null) {
+                    // 终止事件已写出
+                    complete();
+                    return;
+                }
+                if (sent == DRAIN_BATCH) {
+                    // 保持 draining 状态，重新排到其他订阅者之后
+                    schedule();
+                    return;
+                }
+
+                long delayMs = System.currentTimeMillis() - next.enqueuedAt;
+                recordDelay(delayMs);
+                if (delayMs > delayThresholdMs) {
+                    // 缓冲按入队顺序排列，队首积压已超过阈值，说明客户端持续跟不上
+                    staleSubscribers.incrementAndGet();
+                    droppedEvents.incrementAndGet();
+                    log.debug("订阅积压 {}ms 超过阈值，关闭订阅: job={}", delayMs, next.event.getJobId());
+                    complete();
+                    return;
+                }
+                try {
+                    emitter.send(SseEmitter.event()
+                            .name("progress")
+                            .data(next.event, MediaType.APPLICATION_JSON));
+                    deliveredEvents.incrementAndGet();
+                } catch (IOException | IllegalStateException e) {
+                    failedSends.incrementAndGet();
+                    log.debug("进度事件发送失败，关闭订阅: job={}", next.event.getJobId());
+                    complete();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 主动结束连接
+         */
+        void complete() {
+            if (close()) {
+                try {
+                    emitter.complete();
+                } catch (IllegalStateException ignored) {
+                    // 连接已由容器关闭
+                }
+            }
+        }
+
+        /**
+         * 标记关闭并移出频道，返回是否为首次关闭
+         */
+        boolean close() {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+                int discarded = buffer.size();
+                if (discarded > 0) {
+                    droppedEvents.addAndGet(discarded);
+                }
+                buffer.clear();
+            }
+            channel.remove(this);
+            activeSubscribers.decrementAndGet();
+            return true;
+        }
+    }
+
+    private static class QueuedEvent {
+        final ProgressEvent event;
+        final long enqueuedAt;
+
+        QueuedEvent(ProgressEvent event, long enqueuedAt) {
+            this.event = event;
+            this.enqueuedAt = enqueuedAt;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+package com.example.pdfcorrection.service;
+
+/**
+ * 由粗到精的金字塔搜索
+ *
+ * <p>流程：
+ * <ol>
+ *   <li>把投影逐级按2×2合并，直到短边不足 minLevelSize 或达到 maxLevels</li>
+ *   <li>在最粗层按 coarseStep 扫描搜索窗口</li>
+ *   <li>逐级回到细层，每层只在上一层最佳角度±步长内以半步长重新扫描</li>
+ *   <li>全分辨率层上先按 {@value #MID_STEP}° 扫描最佳角度±步长，再按 precision 扫描新最佳角度±{@value #MID_STEP}°</li>
+ * </ol>
+ * 粗层像素数按4的幂减少，全分辨率评分只剩二十次左右。
+ * 短边不足 2×minLevelSize 的投影不建粗层(线上块级检测的256像素块即是如此)，
+ * 此时第1步直接在全分辨率上按 coarseStep 扫描，相当于步长更粗的网格搜索。
+ * 评分曲线在 0.01° 尺度上有锯齿(投影按最近行取整)，黄金分割会停在局部峰上，
+ * 最后一步因此与网格搜索一样做密集扫描，只是范围窄得多。
+ */
+class PyramidAngleSearch implements AngleSearchStrategy {
+
+    private static final double MID_STEP = 0.05;
+
+    private final double coarseStep;
+    private final double precision;
+    private final int maxLevels;
+    private final int minLevelSize;
+
+    /**
+     * @param coarseStep   最粗层扫描步长(度)
+     * @param precision    目标角度精度(度)
+     * @param maxLevels    金字塔最多层数(含全分辨率层)
+     * @param minLevelSize 粗层短边下限(像素)，过小的层投影噪声过大
+     */
+    PyramidAngleSearch(double coarseStep, double precision, int maxLevels, int minLevelSize) {
+        this.coarseStep = coarseStep;
+        this.precision = precision;
+        this.maxLevels = Math.max(1, maxLevels);
+        this.minLevelSize = minLevelSize;
+    }
+
+    @Override
+    public Result search(RadonProjection projection, AngleWindow window, PageDeadline deadline) {
+        RadonProjection[] levels = projection.levelBuffer(maxLevels);
+        int levelCount = buildLevels(projection, levels);
+        int evaluations = 0;
+
+        // 1. 最粗层扫描整个窗口
+        RadonProjection coarsest = levels[levelCount - 1];
+        double bestAngle = window.center;
+        double maxScore = -1.0;
+        for (double a = window.firstGridPoint(coarseStep); a <= window.max() + 1e-9; a += coarseStep) {
+            deadline.checkpoint();
+            double score = coarsest.score(a);
+            evaluations++;
+            if (score > maxScore) {
+                maxScore = score;
+                bestAngle = a;
+            }
+        }
+
+        // 2. 逐级细化(不含全分辨率层)
+        double step = coarseStep;
+        for (int level = levelCount - 2; level >= 1; level--) {
+            RadonProjection current = levels[level];
+            double center = bestAngle;
+            double half = step / 2.0;
+            maxScore = -1.0;
+            for (int k = -2; k <= 2; k++) {
+                double a = window.clamp(center + k * half);
+                deadline.checkpoint();
+                double score = current.score(a);
+                evaluations++;
+                if (score > maxScore) {
+                    maxScore = score;
+                    bestAngle = a;
+                }
+            }
+            step = half;
+        }
+
+        // 3. 全分辨率两段扫描
+        double fullAngle = bestAngle;
+        double fullScore = -1.0;
+        for (double a = bestAngle - step; a <= bestAngle + step + 1e-9; a += MID_STEP) {
+            double candidate = window.clamp(a);
+            deadline.checkpoint();
+            double score = projection.score(candidate);
+            evaluations++;
+            if (score > fullScore) {
+                fullScore = score;
+                fullAngle = candidate;
+            }
+        }
+        double center = fullAngle;
+        for (double a = center - MID_STEP + precision; a < center + MID_STEP - 1e-9; a += precision) {
+            double candidate = window.clamp(a);
+            deadline.checkpoint();
+            double score = projection.score(candidate);
+            evaluations++;
+            if (score > fullScore) {
+                fullScore = score;
+                fullAngle = candidate;
+            }
+        }
+        return new Result(fullAngle, fullScore, evaluations);
+    }
+
+    /**
+     * 逐级下采样填入 levels(下标0为全分辨率层)，返回层数
+     */
+    private int buildLevels(RadonProjection projection, RadonProjection[] levels) {
+        int count = levelCount(projection.getWidth(), projection.getHeight());
+        levels[0] = projection;
+        for (int level = 1; level < count; level++) {
+            levels[level] = levels[level - 1].downsample(2);
+        }
+        return count;
+    }
+
+    /**
+     * 给定尺寸的投影建几层(含全分辨率层)
+     */
+    int levelCount(int width, int height) {
+        int count = 1;
+        int side = Math.min(width, height);
+        while (count < maxLevels && side / 2 >= minLevelSize) {
+            // 与 RadonProjection.downsample(2) 相同，向上取整
+            side = (side + 1) / 2;
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,398 @@
+package com.example.pdfcorrection.service;
+
+import org.opencv.core.Rect;
+
+import java.util.Arrays;
+
+/**
+ * 免旋转的投影轮廓计算
+ *
+ * <p>构造时从按位压缩的整页二值图 {@link PackedBinary} 中移位截取出对齐的块，
+ * 并按字扫描置位(跳过全0字)把前景像素坐标一次性提取到基本类型数组。
+ * 每个候选角度有两种投影方式，按预估成本选择：
+ * <ul>
+ *   <li>逐点：按旋转公式把每个前景坐标累加到行投影直方图</li>
+ *   <li>逐段：把每行切成若干段，段内像素按段中心计算目标行、用 {@link Long#bitCount} 一次计数；
+ *       段长取 SPAN_ERROR / |sin|(不超过一个字)，段内像素的目标行与逐点计算相差不超过 SPAN_ERROR / 2 像素。
+ *       小角度时一段就是一个字，成本与前景像素数无关</li>
+ * </ul>
+ * 不再对图像做 warpAffine 重采样，也不为每个角度分配 Mat。
+ *
+ * <p>评分与原先的 旋转 → 按行求和 → CV²/mean 保持一致：
+ * 旋转后的画布按完整包围框扩展，扩展出的边框在原实现中以255填充，
+ * 这里按行解析计算边框像素数并同样计入投影。
+ *
+ * <p>{@link #downsample(int)} 把相邻像素合并为带权重的格子，得到低分辨率层，
+ * 供金字塔搜索在粗层上快速评估候选角度。
+ *
+ * <p>压缩块、坐标数组和直方图取自 {@link Scratch}，同一线程上先后处理的块复用同一份缓冲；
+ * 低分辨率层使用下一级 Scratch，各层缓冲同样逐块复用。
+ * 实例不是线程安全的，也不应在下一个块开始后继续使用
+ */
+class RadonProjection {
+
+    private static final double FOREGROUND = 255.0;
+    // 逐段投影时同一段两端像素目标行之差的上限(像素)
+    private static final double SPAN_ERROR = 0.25;
+    private static final int WORD_BITS = 64;
+    private static final PixelKernels KERNELS = PixelKernels.get();
+
+    private final int width;
+    private final int height;
+    private final double centerX;
+    private final double centerY;
+    // 按行存放的前景像素列坐标：第 y 行为 xs[rowStart[y] .. rowStart[y + 1])
+    private final int[] rowStart;
+    private final int[] xs;
+    // 每个坐标代表的前景像素数，全分辨率层为null(均为1)
+    private final int[] weights;
+    // 每个格子对应的原图像素数，边框按整格计
+    private final int cellArea;
+    // 全分辨率层按位压缩的块(每行 stride 个字)，低分辨率层为null
+    private final long[] bits;
+    private final int stride;
+    private final Scratch scratch;
+
+    /**
+     * @param page    按位压缩的整页二值图
+     * @param roi     块在页面中的位置
+     * @param scratch 当前线程的复用缓冲
+     */
+    RadonProjection(PackedBinary page, Rect roi, Scratch scratch) {
+        this.width = roi.width;
+        this.height = roi.height;
+        this.centerX = width / 2.0;
+        this.centerY = height / 2.0;
+        this.stride = PackedBinary.wordsFor(width);
+
+        // 移位截取为从第0位对齐的块，前景数即坐标数组长度
+        long[] block = scratch.bits(stride * height);
+        int count = (int) page.copyAligned(roi, block);
+        int[] starts = scratch.rowStart(height + 1);
+        int[] coords = scratch.xs(Math.max(16, count));
+        int n = 0;
+        for (int y = 0; y < height; y++) {
+            starts[y] = n;
+            int base = y * stride;
+            for (int i = 0; i < stride; i++) {
+                long w = block[base + i];
+                int x0 = i * WORD_BITS;
+                while (w != 0) {
+                    coords[n++] = x0 + Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                }
+            }
+        }
+        starts[height] = n;
+        this.rowStart = starts;
+        this.xs = coords;
+        this.weights = null;
+        this.cellArea = 1;
+        this.bits = block;
+        this.scratch = scratch;
+    }
+
+    private RadonProjection(int width, int height, int[] rowStart, int[] xs, int[] weights, int cellArea,
+                            Scratch scratch) {
+        this.width = width;
+        this.height = height;
+        this.centerX = width / 2.0;
+        this.centerY = height / 2.0;
+        this.rowStart = rowStart;
+        this.xs = xs;
+        this.weights = weights;
+        this.cellArea = cellArea;
+        this.bits = null;
+        this.stride = 0;
+        this.scratch = scratch;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * 金字塔各层的复用数组，取自本层的 Scratch
+     */
+    RadonProjection[] levelBuffer(int size) {
+        return scratch.levels(size);
+    }
+
+    /**
+     * 按 factor×factor 合并像素得到低分辨率层
+     *
+     * <p>结果使用下一级 Scratch 的缓冲，同一层再次下采样会覆盖上一次的结果
+     */
+    RadonProjection downsample(int factor) {
+        if (factor <= 1) {
+            return this;
+        }
+        int newWidth = (width + factor - 1) / factor;
+        int newHeight = (height + factor - 1) / factor;
+        Scratch level = scratch.coarser();
+        int capacity = Math.max(16, Math.min(rowStart[height], newWidth * newHeight));
+        int[] starts = level.rowStart(newHeight + 1);
+        int[] coords = level.xs(capacity);
+        int[] cellWeights = level.weights(capacity);
+        int[] accum = level.accum(newWidth);
+        int count = 0;
+
+        for (int cy = 0; cy < newHeight; cy++) {
+            starts[cy] = count;
+            int yEnd = Math.min(height, (cy + 1) * factor);
+            for (int y = cy * factor; y < yEnd; y++) {
+                for (int i = rowStart[y], end = rowStart[y + 1]; i < end; i++) {
+                    accum[xs[i] / factor] += weights == null ? 1 : weights[i];
+                }
+            }
+            for (int cx = 0; cx < newWidth; cx++) {
+                if (accum[cx] != 0) {
+                    coords[count] = cx;
+                    cellWeights[count++] = accum[cx];
+                    accum[cx] = 0;
+                }
+            }
+        }
+        starts[newHeight] = count;
+        return new RadonProjection(newWidth, newHeight, starts, coords, cellWeights, cellArea * factor * factor,
+                level);
+    }
+
+    /**
+     * 旋转指定角度后行投影的 CV²/mean
+     *
+     * @param angle 角度(度)，与 Imgproc.getRotationMatrix2D 同向
+     */
+    double score(double angle) {
+        double rad = Math.toRadians(angle);
+        double cos = Math.cos(rad);
+        double sin = Math.sin(rad);
+        double absCos = Math.abs(cos);
+        double absSin = Math.abs(sin);
+        int newW = (int) Math.round(height * absSin + width * absCos);
+        int newH = (int) Math.round(height * absCos + width * absSin);
+        if (newH <= 0) {
+            return 0.0;
+        }
+
+        long[] histogram = scratch.histogram(newH);
+
+        // 目标行 y' = -sin·(x - cx) + cos·(y - cy) + newH/2，取最近行
+        double offset = newH / 2.0 + 0.5;
+        int span = spanLength(absSin);
+        int spans = (width + span - 1) / span;
+        if (bits != null && (long) spans * height < rowStart[height]) {
+            projectSpans(histogram, newH, cos, sin, offset, span, spans);
+        } else {
+            projectPoints(histogram, newH, cos, sin, offset);
+        }
+
+        // 行值都是整数，和是精确的；平方和在很大的画布上可能与逐行累加有末位舍入差异，不影响比较
+        double[] rows = scratch.rows(newH);
+        for (int r = 0; r < newH; r++) {
+            long inside = insidePixels(r, newW, newH, cos, sin);
+            rows[r] = (histogram[r] + (newW - inside) * (long) cellArea) * FOREGROUND;
+        }
+        double[] moments = scratch.moments;
+        KERNELS.moments(rows, newH, moments);
+        double sum = moments[0];
+        double sumSq = moments[1];
+
+        double mean = sum / newH;
+        if (mean < 1.0) {
+            return 0.0;
+        }
+        double variance = Math.max(0.0, sumSq / newH - mean * mean);
+        return variance / (mean + 1e-5);
+    }
+
+    private void projectPoints(long[] histogram, int newH, double cos, double sin, double offset) {
+        for (int y = 0; y < height; y++) {
+            double base = cos * (y - centerY) + offset;
+            for (int i = rowStart[y], end = rowStart[y + 1]; i < end; i++) {
+                double target = base - sin * (xs[i] - centerX);
+                if (target >= 0) {
+                    int r = (int) target;
+                    if (r < newH) {
+                        histogram[r] += weights == null ? 1 : weights[i];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 每行按 span 列分段，段内前景用 bitCount 计数后整体落到段中心对应的目标行
+     */
+    private void projectSpans(long[] histogram, int newH, double cos, double sin, double offset,
+                              int span, int spans) {
+        double[] shifts = scratch.shifts(spans);
+        for (int s = 0; s < spans; s++) {
+            int x0 = s * span;
+            int x1 = Math.min(width, x0 + span);
+            shifts[s] = -sin * ((x0 + x1 - 1) / 2.0 - centerX);
+        }
+        for (int y = 0; y < height; y++) {
+            double base = cos * (y - centerY) + offset;
+            int rowBase = y * stride;
+            for (int s = 0; s < spans; s++) {
+                int count = span == WORD_BITS ?
+                        Long.bitCount(bits[rowBase + s]) :
+                        PackedBinary.countRow(bits, rowBase, s * span, Math.min(width, (s + 1) * span));
+                if (count == 0) {
+                    continue;
+                }
+                double target = base + shifts[s];
+                if (target >= 0) {
+                    int r = (int) target;
+                    if (r < newH) {
+                        histogram[r] += count;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 段长：同一段两端像素的目标行相差不超过 SPAN_ERROR，最长一个字
+     */
+    private static int spanLength(double absSin) {
+        if (absSin * WORD_BITS <= SPAN_ERROR) {
+            return WORD_BITS;
+        }
+        return Math.max(1, (int) (SPAN_ERROR / absSin));
+    }
+
+    /**
+     * 目标画布第 r 行中反向映射后落在原图内的像素数(其余为边框)
+     */
+    private long insidePixels(int r, int newW, int newH, double cos, double sin) {
+        double dy = r - newH / 2.0;
+        double halfW = newW / 2.0;
+
+        // 反向映射：sx = cos·dx - sin·dy + cx，sy = sin·dx + cos·dy + cy，按最近邻取样
+        // 约束 -0.5 <= sx < width - 0.5 且 -0.5 <= sy < height - 0.5，解出 dx 的区间
+        double lo = (-0.5 - centerX + sin * dy) / cos;
+        double hi = (width - 0.5 - centerX + sin * dy) / cos;
+
+        double lowY = -0.5 - centerY - cos * dy;
+        double highY = height - 0.5 - centerY - cos * dy;
+        if (sin > 0) {
+            lo = Math.max(lo, lowY / sin);
+            hi = Math.min(hi, highY / sin);
+        } else if (sin < 0) {
+            lo = Math.max(lo, highY / sin);
+            hi = Math.min(hi, lowY / sin);
+        } else if (lowY > 0 || highY <= 0) {
+            return 0;
+        }
+
+        long first = Math.max(0L, (long) Math.ceil(lo + halfW));
+        long last = Math.min(newW - 1L, (long) Math.ceil(hi + halfW) - 1);
+        return Math.max(0L, last - first + 1);
+    }
+
+    /**
+     * 单线程复用的缓冲，按需扩容，不缩小；低分辨率层的缓冲在 {@link #coarser()} 链上逐层懒建
+     */
+    static class Scratch {
+        private long[] bits = new long[0];
+        private int[] rowStart = new int[0];
+        private int[] xs = new int[0];
+        private int[] weights = new int[0];
+        private int[] accum = new int[0];
+        private RadonProjection[] levels = new RadonProjection[0];
+        private Scratch coarser;
+        private long[] histogram = new long[0];
+        private double[] shifts = new double[0];
+        private double[] rows = new double[0];
+        private final double[] moments = new double[2];
+
+        long[] bits(int size) {
+            if (bits.length < size) {
+                bits = new long[size];
+            }
+            return bits;
+        }
+
+        int[] rowStart(int size) {
+            if (rowStart.length < size) {
+                rowStart = new int[size];
+            }
+            return rowStart;
+        }
+
+        int[] xs(int size) {
+            if (xs.length < size) {
+                xs = new int[size];
+            }
+            return xs;
+        }
+
+        int[] weights(int size) {
+            if (weights.length < size) {
+                weights = new int[size];
+            }
+            return weights;
+        }
+
+        /**
+         * 清零后的前 size 个累加格
+         */
+        int[] accum(int size) {
+            if (accum.length < size) {
+                accum = new int[size];
+            } else {
+                Arrays.fill(accum, 0, size, 0);
+            }
+            return accum;
+        }
+
+        RadonProjection[] levels(int size) {
+            if (levels.length < size) {
+                levels = new RadonProjection[size];
+            }
+            return levels;
+        }
+
+        /**
+         * 下一级(更低分辨率)层的缓冲
+         */
+        Scratch coarser() {
+            if (coarser == null) {
+                coarser = new Scratch();
+            }
+            return coarser;
+        }
+
+        double[] shifts(int size) {
+            if (shifts.length < size) {
+                shifts = new double[size];
+            }
+            return shifts;
+        }
+
+        double[] rows(int size) {
+            if (rows.length < size) {
+                rows = new double[size];
+            }
+            return rows;
+        }
+
+        /**
+         * 清零后的前 size 个直方图格
+         */
+        long[] histogram(int size) {
+            if (histogram.length < size) {
+                histogram = new long[size];
+            } else {
+                Arrays.fill(histogram, 0, size, 0L);
+            }
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.pdfcorrection.service;
+
+/**
+ * 倾斜角度检测器
+ *
+ * <p>输入为单页检测上下文 {@link PageAnalysis}(检测分辨率，长边不超过 MAX_DETECTION_SIZE)，
+ * 二值图、文本掩码等中间结果在级联各级之间共享。由 {@link SkewDetectorRegistry}
+ * 按成本从低到高组成级联：前一级置信度达到阈值即停止，否则升级到下一级并与已有结果融合。
+ * 实现需线程安全，多个页面会并发调用同一实例。
+ */
+interface SkewDetector {
+
+    /**
+     * 注册名，用于级联配置和统计
+     */
+    String name();
+
+    /**
+     * 相对成本，级联按升序执行
+     */
+    int cost();
+
+    /**
+     * 检测倾斜角度；检测过程中定期检查取消和页面时限
+     *
+     * @param page     单页检测上下文，调用方负责释放
+     * @param window   搜索窗口，{@link #usesWindow()} 为false的检测器忽略
+     * @param deadline 页面时限
+     * @return 检测结果，没有可靠结果时角度为NaN
+     */
+    Estimate detect(PageAnalysis page, AngleWindow window, PageDeadline deadline);
+
+    /**
+     * 是否只在给定窗口内搜索；为true时窗口内结果不可靠会退回全范围重新检测
+     */
+    default boolean usesWindow() {
+        return false;
+    }
+
+    /**
+     * 单个检测器的结果
+     */
+    class Estimate {
+        final double angle;
+        final double score;
+        final double confidence;
+
+        /**
+         * @param angle      角度(度)，NaN 表示没有结果
+         * @param score      检测器内部评分，量纲因检测器而异
+         * @param confidence 检测器对自身结果的置信度，取值[0, 1]
+         */
+        Estimate(double angle, double score, double confidence) {
+            this.angle = angle;
+            this.score = score;
+            this.confidence = confidence;
+        }
+
+        static Estimate none() {
+            return new Estimate(Double.NaN, 0.0, 0.0);
+        }
+
+        boolean isValid() {
+            return !Double.isNaN(angle);
+        }
+    }
+}
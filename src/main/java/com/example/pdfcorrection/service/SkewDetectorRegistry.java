@@ -0,0 +1,102 @@
+package com.example.pdfcorrection.service;
+
+import com.example.pdfcorrection.model.SkewDetectorStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 倾斜检测器注册表与级联调度
+ *
+ * <p>检测器按名称注册，级联由配置的名称列表选出并按 {@link SkewDetector#cost()} 升序排列。
+ * 每个检测器的调用次数、耗时、无结果次数和"一锤定音"次数在这里累计。
+ */
+@Slf4j
+class SkewDetectorRegistry {
+
+    private final Map<String, SkewDetector> detectors = new LinkedHashMap<>();
+    private final Map<String, Counters> counters = new LinkedHashMap<>();
+    private volatile List<SkewDetector> cascade = Collections.emptyList();
+
+    synchronized void register(SkewDetector detector) {
+        detectors.put(detector.name(), detector);
+        counters.putIfAbsent(detector.name(), new Counters());
+    }
+
+    /**
+     * 按名称配置级联，未注册的名称忽略
+     */
+    synchronized void configureCascade(Collection<String> names) {
+        List<SkewDetector> selected = new ArrayList<>();
+        for (String name : names) {
+            SkewDetector detector = detectors.get(name.trim());
+            if (detector == null) {
+                log.warn("未知的倾斜检测器: {}", name);
+            } else if (!selected.contains(detector)) {
+                selected.add(detector);
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalStateException("倾斜检测级联为空: " + names);
+        }
+        selected.sort(Comparator.comparingInt(SkewDetector::cost));
+        cascade = Collections.unmodifiableList(selected);
+    }
+
+    List<SkewDetector> cascade() {
+        return cascade;
+    }
+
+    /**
+     * 运行检测器并记录耗时；超时、取消等异常计为失败后原样抛出
+     */
+    SkewDetector.Estimate run(SkewDetector detector, PageAnalysis page, AngleWindow window, PageDeadline deadline) {
+        Counters c = counters.get(detector.name());
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            SkewDetector.Estimate estimate = detector.detect(page, window, deadline);
+            completed = true;
+            if (!estimate.isValid()) {
+                c.noResult.incrementAndGet();
+            }
+            return estimate;
+        } finally {
+            c.invocations.incrementAndGet();
+            c.nanos.addAndGet(System.nanoTime() - start);
+            if (!completed) {
+                c.failures.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 记录级联在该检测器处停止
+     */
+    void recordDecisive(SkewDetector detector) {
+        counters.get(detector.name()).decisive.incrementAndGet();
+    }
+
+    List<SkewDetectorStats> stats() {
+        List<SkewDetector> active = cascade;
+        List<SkewDetectorStats> result = new ArrayList<>();
+        synchronized (this) {
+            for (SkewDetector detector : detectors.values()) {
+                Counters c = counters.get(detector.name());
+                result.add(new SkewDetectorStats(detector.name(), active.indexOf(detector),
+                        c.invocations.get(), c.decisive.get(), c.noResult.get(),
+                        c.failures.get(), c.nanos.get()));
+            }
+        }
+        return result;
+    }
+
+    private static class Counters {
+        final AtomicLong invocations = new AtomicLong();
+        final AtomicLong decisive = new AtomicLong();
+        final AtomicLong noResult = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong nanos = new AtomicLong();
+    }
+}
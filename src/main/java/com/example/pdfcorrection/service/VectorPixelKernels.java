@@ -0,0 +1,126 @@
+package com.example.pdfcorrection.service;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 Vector API(jdk.incubator.vector)的像素内核
+ *
+ * <p>只由 {@link PixelKernels#get()} 在孵化模块已启用、首选宽度足够时反射加载，其他代码不直接引用本类。
+ * 每个循环按首选宽度处理整块，剩余不足一块的部分交给标量版本，结果与标量版本相同。
+ * 需要首选宽度至少256位(int → byte 收窄要有64位的字节向量形状)，由 {@link PixelKernels} 加载前检查
+ */
+final class VectorPixelKernels extends PixelKernels {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // 与 INTS 同样多通道的字节向量，承接 int → byte 的收窄
+    private static final VectorSpecies<Byte> GRAY_BYTES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.length() * Byte.SIZE));
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = VectorSpecies.of(long.class, BYTES.vectorShape());
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    // 把一个 long 中8个 0/1 字节收拢到最高字节：第 i 个字节落到第 56+i 位
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long GATHER = 0x0102040810204080L;
+    private static final LongVector LANE_SHIFTS = laneShifts();
+
+    private static LongVector laneShifts() {
+        long[] shifts = new long[LONGS.length()];
+        for (int i = 0; i < shifts.length; i++) {
+            shifts[i] = (long) i * Byte.SIZE;
+        }
+        return LongVector.fromArray(LONGS, shifts, 0);
+    }
+
+    @Override
+    String name() {
+        return "vector(" + BYTES.vectorBitSize() + " bit)";
+    }
+
+    @Override
+    void rgbToGray(int[] rgb, int offset, int count, byte[] gray, int grayOffset) {
+        int lanes = INTS.length();
+        int i = 0;
+        for (int end = count - lanes + 1; i < end; i += lanes) {
+            IntVector p = IntVector.fromArray(INTS, rgb, offset + i);
+            IntVector r = p.lanewise(VectorOperators.LSHR, 16).and(0xff);
+            IntVector g = p.lanewise(VectorOperators.LSHR, 8).and(0xff);
+            IntVector b = p.and(0xff);
+            IntVector y = r.mul(GRAY_R)
+                    .add(g.mul(GRAY_G))
+                    .add(b.mul(GRAY_B))
+                    .add(GRAY_ROUND)
+                    .lanewise(VectorOperators.LSHR, GRAY_SHIFT);
+            ((ByteVector) y.convertShape(VectorOperators.I2B, GRAY_BYTES, 0))
+                    .intoArray(gray, grayOffset + i);
+        }
+        super.rgbToGray(rgb, offset + i, count - i, gray, grayOffset + i);
+    }
+
+    @Override
+    long thresholdInv(byte[] gray, int width, int height, int threshold, byte[] binary, long[] words) {
+        int lanes = BYTES.length();
+        int stride = PackedBinary.wordsFor(width);
+        byte limit = (byte) threshold;
+        ByteVector foreground = ByteVector.broadcast(BYTES, (byte) 255);
+        ByteVector background = ByteVector.zero(BYTES);
+        long count = 0;
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int base = y * stride;
+            int x = 0;
+            // lanes 整除64，每块的位落在同一个字内
+            for (int end = width - lanes + 1; x < end; x += lanes) {
+                ByteVector ink = background.blend(foreground, ByteVector.fromArray(BYTES, gray, row + x)
+                        .compare(VectorOperators.UNSIGNED_LE, limit));
+                ink.intoArray(binary, row + x);
+                // VectorMask.toLong 在 JDK 17 上没有内联为单条指令，改用乘法收拢每8个字节的位
+                long bits = ink.reinterpretAsLongs()
+                        .and(LOW_BITS)
+                        .mul(GATHER)
+                        .lanewise(VectorOperators.LSHR, 56)
+                        .lanewise(VectorOperators.LSHL, LANE_SHIFTS)
+                        .reduceLanes(VectorOperators.OR);
+                words[base + (x >>> 6)] |= bits << x;
+                count += Long.bitCount(bits);
+            }
+            for (; x < width; x++) {
+                if ((gray[row + x] & 0xff) <= threshold) {
+                    binary[row + x] = (byte) 255;
+                    words[base + (x >>> 6)] |= 1L << x;
+                    count++;
+                } else {
+                    binary[row + x] = 0;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    void moments(double[] values, int n, double[] out) {
+        int lanes = DOUBLES.length();
+        DoubleVector sum = DoubleVector.zero(DOUBLES);
+        DoubleVector sumSq = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int end = n - lanes + 1; i < end; i += lanes) {
+            DoubleVector v = DoubleVector.fromArray(DOUBLES, values, i);
+            sum = sum.add(v);
+            sumSq = v.fma(v, sumSq);
+        }
+        double s = sum.reduceLanes(VectorOperators.ADD);
+        double sq = sumSq.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            s += values[i];
+            sq += values[i] * values[i];
+        }
+        out[0] = s;
+        out[1] = sq;
+    }
+}
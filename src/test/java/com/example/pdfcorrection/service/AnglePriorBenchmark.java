@@ -0,0 +1,117 @@
+package com.example.pdfcorrection.service;
+
+import com.example.pdfcorrection.PDFApplication;
+import com.example.pdfcorrection.model.CorrectionResult;
+import com.example.pdfcorrection.model.SkewDetectorStats;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 文档级角度先验(pdf.correction.prior.*)对整份文档矫正耗时和精度的影响
+ *
+ * <p>合成文档模拟同一扫描批次：各页倾斜角在 1.2° ± 0.3° 内。每个级联分别在
+ * 关闭先验、开启先验、开启先验并抽取4个种子页三种配置下，走完整的
+ * {@link PdfCorrectionService#correctPdfSkewWithAngle} 流水线(渲染、检测、矫正、写出)。
+ * 每种配置启动一个不带 Web 的应用上下文，预热一次后取3次的中位数；
+ * 误差取3次中平均误差最大的一次(开启先验时结果可能随调度变化)；
+ * 另外列出每份文档 Radon 的调用次数和平均耗时(先验只收窄 Radon 的搜索窗口)。
+ *
+ * <p>实测(单核)：默认级联 Radon 不运行，三种配置 480~525 ms/页，误差相同；
+ * hough,radon 与 radon 级联中 Radon 结果置信度不足，先验样本始终为0，窗口不收窄，
+ * 误差不变，种子页每份文档另需约0.8秒。耗时差异都在单核机器±15%的噪声内。
+ * 参数为级联，默认 {@code hough,fft,radon}、{@code hough,radon}、{@code radon}。运行：
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="--add-modules jdk.incubator.vector -cp %classpath \
+ *     com.example.pdfcorrection.service.AnglePriorBenchmark hough,fft,radon radon"
+ * </pre>
+ */
+public class AnglePriorBenchmark {
+
+    private static final int PAGES = 40;
+    private static final int RUNS = 3;
+    private static final String[][] PRIORS = {
+            {"off", "--pdf.correction.prior.enabled=false"},
+            {"on", "--pdf.correction.prior.enabled=true", "--pdf.correction.prior.seed-pages=0"},
+            {"on+4 seeds", "--pdf.correction.prior.enabled=true", "--pdf.correction.prior.seed-pages=4"},
+    };
+
+    public static void main(String[] args) throws Exception {
+        List<String> cascades = args.length == 0 ?
+                Arrays.asList("hough,fft,radon", "hough,radon", "radon") : Arrays.asList(args);
+
+        Path dir = Files.createTempDirectory("angle-prior-bench");
+        Random random = new Random(7);
+        double[] angles = new double[PAGES];
+        for (int i = 0; i < PAGES; i++) {
+            angles[i] = 1.2 + (random.nextDouble() * 2 - 1) * 0.3;
+        }
+        byte[] pdf = Files.readAllBytes(SkewedPages.writePdf(dir.resolve("input.pdf"), angles, 7));
+
+        System.out.printf("%-18s %-12s %10s %10s %10s %10s %16s%n",
+                "cascade", "prior", "耗时 ms", "ms/页", "mean err", "max err", "radon 调用/平均ms");
+        for (String cascade : cascades) {
+            for (String[] prior : PRIORS) {
+                String[] settings = new String[prior.length + 2];
+                settings[0] = "--file.upload-dir=" + dir.resolve("out");
+                settings[1] = "--pdf.correction.detect.cascade=" + cascade;
+                settings[2] = "--logging.level.root=WARN";
+                System.arraycopy(prior, 1, settings, 3, prior.length - 1);
+                // min-angle 默认0.05°，所有页面都在其之上，不影响结果
+                try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PDFApplication.class)
+                        .web(WebApplicationType.NONE)
+                        .bannerMode(Banner.Mode.OFF)
+                        // 以命令行参数传入，优先于 application.properties
+                        .run(settings)) {
+                    PdfCorrectionService service = context.getBean(PdfCorrectionService.class);
+                    MockMultipartFile file = new MockMultipartFile("file", "input.pdf", "application/pdf", pdf);
+                    service.correctPdfSkewWithAngle(file);
+                    SkewDetectorStats warm = radonStats(service);
+
+                    long[] millis = new long[RUNS];
+                    double meanError = 0;
+                    double maxError = 0;
+                    for (int run = 0; run < RUNS; run++) {
+                        long start = System.nanoTime();
+                        CorrectionResult result = service.correctPdfSkewWithAngle(file);
+                        millis[run] = (System.nanoTime() - start) / 1_000_000;
+                        double total = 0;
+                        for (int i = 0; i < PAGES; i++) {
+                            double error = Math.abs(result.getPageAngles().get(i) - angles[i]);
+                            total += error;
+                            maxError = Math.max(maxError, error);
+                        }
+                        meanError = Math.max(meanError, total / PAGES);
+                    }
+                    SkewDetectorStats radon = radonStats(service);
+                    long calls = radon == null ? 0 : radon.getInvocations() - warm.getInvocations();
+                    double radonMillis = calls == 0 ? 0 :
+                            (radon.getTotalMillis() - warm.getTotalMillis()) / (double) calls;
+
+                    Arrays.sort(millis);
+                    long median = millis[RUNS / 2];
+                    System.out.printf(Locale.ROOT, "%-18s %-12s %10d %10.1f %10.3f %10.3f %10.1f/%.1f%n",
+                            cascade, prior[0], median, median / (double) PAGES, meanError, maxError,
+                            calls / (double) RUNS, radonMillis);
+                }
+            }
+        }
+    }
+
+    private static SkewDetectorStats radonStats(PdfCorrectionService service) {
+        return service.getDetectorStats().stream()
+                .filter(s -> s.getName().equals("radon"))
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.pdfcorrection.service;
+
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Radon 块角度搜索策略对比：网格搜索与金字塔搜索的评分次数、耗时和角度误差
+ *
+ * <p>每种块尺寸取 80 个合成文字块，倾斜角在 ±4.5° 内均匀分布，误差相对已知角度计算。
+ * 块取自 {@link SkewedPages} 的 A4 页面中心，按灰度 &lt; 160 二值化。256/512/1000 三行的页面为 150 DPI；
+ * 线上检测图长边只有1000，块边长 max(256, 页面短边/8) 总是256，"256@1000" 一行即线上情形：
+ * 707x1000 页面上随机位置的256像素块(字号随页面缩小)。运行：
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath com.example.pdfcorrection.service.AngleSearchBenchmark"
+ * </pre>
+ */
+public class AngleSearchBenchmark {
+
+    private static final int BLOCKS = 80;
+    private static final double RANGE = 5.0;
+    private static final double PRECISION = 0.01;
+    private static final int DETECTION_WIDTH = 707;
+    private static final int DETECTION_HEIGHT = 1000;
+
+    public static void main(String[] args) {
+        Map<String, AngleSearchStrategy> strategies = new LinkedHashMap<>();
+        strategies.put("grid 0.2", new GridAngleSearch(0.2, PRECISION));
+        strategies.put("pyramid 0.25/2/256", new PyramidAngleSearch(0.25, PRECISION, 2, 256));
+        for (String spec : args) {
+            // 追加的金字塔参数：coarseStep/maxLevels/minLevelSize，如 0.5/3/100
+            String[] parts = spec.split("/");
+            strategies.put("pyramid " + spec, new PyramidAngleSearch(Double.parseDouble(parts[0]), PRECISION,
+                    Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+        }
+
+        System.out.printf("%-8s %-18s %12s %10s %10s %10s %10s%n",
+                "size", "strategy", "evals/block", "ms/block", "mean err", "p90 err", "max err");
+        // 块边长, 页面宽, 页面高, 是否随机位置
+        int[][] cases = {
+                {256, DETECTION_WIDTH, DETECTION_HEIGHT, 1},
+                {256, SkewedPages.A4_WIDTH, SkewedPages.A4_HEIGHT, 0},
+                {512, SkewedPages.A4_WIDTH, SkewedPages.A4_HEIGHT, 0},
+                {1000, SkewedPages.A4_WIDTH, SkewedPages.A4_HEIGHT, 0}
+        };
+        for (int[] spec : cases) {
+            int size = spec[0];
+            int width = spec[1];
+            int height = spec[2];
+            String label = width == DETECTION_WIDTH ? size + "@1000" : String.valueOf(size);
+            List<PackedBinary> pages = new ArrayList<>(BLOCKS);
+            List<Rect> rois = new ArrayList<>(BLOCKS);
+            double[] truth = new double[BLOCKS];
+            Random random = new Random(size + width);
+            for (int i = 0; i < BLOCKS; i++) {
+                truth[i] = (random.nextDouble() * 2 - 1) * 4.5;
+                pages.add(BinaryPages.pack(SkewedPages.render(width, height, truth[i], size * 1000L + i)));
+                // 随机位置避开页边留白
+                rois.add(spec[3] == 1 ?
+                        new Rect(width / 10 + random.nextInt(width * 8 / 10 - size),
+                                height / 10 + random.nextInt(height * 8 / 10 - size), size, size) :
+                        new Rect((width - size) / 2, (height - size) / 2, size, size));
+            }
+
+            for (Map.Entry<String, AngleSearchStrategy> entry : strategies.entrySet()) {
+                RadonProjection.Scratch scratch = new RadonProjection.Scratch();
+                AngleWindow window = AngleWindow.full(RANGE);
+                double[] errors = new double[BLOCKS];
+                long evaluations = 0;
+                long nanos = 0;
+                // 第一轮预热
+                for (int round = 0; round < 2; round++) {
+                    evaluations = 0;
+                    long start = System.nanoTime();
+                    for (int i = 0; i < BLOCKS; i++) {
+                        RadonProjection projection = new RadonProjection(pages.get(i), rois.get(i), scratch);
+                        AngleSearchStrategy.Result result = entry.getValue()
+                                .search(projection, window, PageDeadline.unbounded());
+                        evaluations += result.evaluations;
+                        errors[i] = Math.abs(result.angle - truth[i]);
+                    }
+                    nanos = System.nanoTime() - start;
+                }
+                Arrays.sort(errors);
+                System.out.printf(Locale.ROOT, "%-8s %-18s %12.1f %10.2f %10.3f %10.3f %10.3f%n",
+                        label, entry.getKey(), evaluations / (double) BLOCKS, nanos / 1e6 / BLOCKS,
+                        Arrays.stream(errors).average().orElse(0), errors[(int) (BLOCKS * 0.9)],
+                        errors[BLOCKS - 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.pdfcorrection.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 合成边缘图上的近水平 Hough 累加：角度符号、亚步长插值、抽样还原和线长阈值
+ */
+class BandHoughAccumulatorTest {
+
+    // 与线上相同：±5°，步长0.05°
+    private static final double BAND = 5.0;
+    private static final double STEP = 0.05;
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 400;
+
+    private final BandHoughAccumulator accumulator = new BandHoughAccumulator(BAND, STEP);
+    private Mat edges;
+
+    @BeforeAll
+    static void loadOpenCv() {
+        nu.pattern.OpenCV.loadLocally();
+    }
+
+    @AfterEach
+    void release() {
+        if (edges != null) {
+            edges.release();
+        }
+    }
+
+    @Test
+    void angleFollowsAtan2OfImageCoordinates() {
+        // 图像坐标 y 向下：x 增大时 y 增大的线段为正角。
+        // 斜线取整成台阶，附近会有两三个局部极大，取最长的一条
+        for (double angle : new double[]{-3.0, 2.0}) {
+            edges = blank();
+            line(edges, 100, 200, 800, angle);
+            accumulator.accumulate(edges, 0);
+            Line longest = collect(accumulator, 400).stream()
+                    .max((a, b) -> Double.compare(a.length, b.length))
+                    .orElseThrow(AssertionError::new);
+            assertEquals(angle, longest.angle, 2 * STEP, "atan2 角 " + angle + "°");
+            edges.release();
+        }
+    }
+
+    @Test
+    void peakIsInterpolatedBetweenThetaSteps() {
+        // 真值离最近格点 0.015°~0.025°。8条平行线的起点错开1/8像素，取整误差相互抵消；
+        // 按线长平方加权(与 Hough 检测器相同)的角度应比最近格点更接近真值
+        for (double angle : new double[]{-2.615, -0.335, 0.37, 1.23, 2.525}) {
+            edges = blank();
+            for (int k = 0; k < 8; k++) {
+                line(edges, 50, 60 + 40 * k + k / 8.0, 900, angle);
+            }
+            accumulator.accumulate(edges, 0);
+            double weighted = 0;
+            double weights = 0;
+            int offGrid = 0;
+            List<Line> lines = collect(accumulator, 600);
+            for (Line line : lines) {
+                weighted += line.angle * line.length * line.length;
+                weights += line.length * line.length;
+                if (Math.abs(line.angle / STEP - Math.round(line.angle / STEP)) > 1e-6) {
+                    offGrid++;
+                }
+            }
+            double error = Math.abs(weighted / weights - angle);
+            double gridError = Math.abs(Math.round(angle / STEP) * STEP - angle);
+            assertTrue(error <= 0.01 && error < gridError,
+                    angle + "° 检测为 " + weighted / weights + "°，最近格点误差 " + gridError);
+            assertTrue(offGrid * 2 >= lines.size(), angle + "°: " + lines.size() + " 条中只有 " + offGrid + " 条做了插值");
+            edges.release();
+        }
+    }
+
+    @Test
+    void subsampledVotesAreScaledBackToLineLength() {
+        edges = blank();
+        line(edges, 0, 200, 800, 0.0);
+
+        assertEquals(800, accumulator.accumulate(edges, 0));
+        Line full = longest(accumulator, 700);
+        assertEquals(800.0, full.length, 1e-9);
+        assertEquals(0.0, full.angle, 1e-9);
+
+        // 上限200点：每4个边缘点取1个，票数乘回4；阈值也按抽样比例换算
+        assertEquals(800, accumulator.accumulate(edges, 200));
+        Line sampled = longest(accumulator, 700);
+        assertEquals(800.0, sampled.length, 1e-9);
+        assertEquals(0.0, sampled.angle, 1e-9);
+        assertEquals(0, collect(accumulator, 804).size());
+    }
+
+    @Test
+    void collectLinesKeepsOnlyLinesReachingMinLength() {
+        // 0° 单像素线：较短的线在相邻几个 θ 上票数相同(平台)，每条只报一次。
+        // 600 像素的线在 ±0.24° 处还有约436票的旁瓣，阈值都取在旁瓣之上
+        edges = blank();
+        line(edges, 100, 100, 450, 0.0);
+        line(edges, 100, 200, 520, 0.0);
+        line(edges, 100, 300, 600, 0.0);
+        accumulator.accumulate(edges, 0);
+
+        assertEquals(0, collect(accumulator, 601).size());
+        assertEquals(1, collect(accumulator, 600).size());
+        assertEquals(1, collect(accumulator, 521).size());
+        assertEquals(2, collect(accumulator, 520).size());
+        assertEquals(2, collect(accumulator, 451).size());
+        List<Line> lines = collect(accumulator, 450);
+        assertEquals(3, lines.size());
+        lines.sort((a, b) -> Double.compare(b.length, a.length));
+        assertEquals(600.0, lines.get(0).length, 1e-9);
+        assertEquals(520.0, lines.get(1).length, 1e-9);
+        assertEquals(450.0, lines.get(2).length, 1e-9);
+        for (Line line : lines) {
+            assertEquals(0.0, line.angle, STEP);
+        }
+    }
+
+    private static Mat blank() {
+        return new Mat(HEIGHT, WIDTH, CvType.CV_8UC1, new Scalar(0));
+    }
+
+    /**
+     * 从 (x0, y0) 起向右画 length 个像素的单像素线，y 按 atan2 角 angle 四舍五入
+     */
+    private static void line(Mat edges, int x0, double y0, int length, double angle) {
+        double slope = Math.tan(Math.toRadians(angle));
+        byte[] on = {(byte) 255};
+        for (int i = 0; i < length; i++) {
+            edges.put((int) Math.round(y0 + i * slope), x0 + i, on);
+        }
+    }
+
+    private static List<Line> collect(BandHoughAccumulator accumulator, int minLength) {
+        List<Line> lines = new ArrayList<>();
+        accumulator.collectLines(minLength, (angle, length) -> lines.add(new Line(angle, length)));
+        return lines;
+    }
+
+    private static Line longest(BandHoughAccumulator accumulator, int minLength) {
+        List<Line> lines = collect(accumulator, minLength);
+        assertEquals(1, lines.size(), "长度不少于 " + minLength + " 的直线数");
+        return lines.get(0);
+    }
+
+    private static final class Line {
+        final double angle;
+        final double length;
+
+        Line(double angle, double length) {
+            this.angle = angle;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.pdfcorrection.service;
+
+import org.opencv.core.Rect;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * 测试与基准用的二值图：灰度页二值化、按位压缩，以及 Radon 投影评分的逐像素参考实现
+ */
+final class BinaryPages {
+
+    // 灰度低于此值为前景
+    static final int INK_THRESHOLD = 160;
+
+    private BinaryPages() {
+    }
+
+    /**
+     * 灰度 &lt; {@link #INK_THRESHOLD} 为前景的 0/255 二值图
+     */
+    static byte[] binarize(BufferedImage gray) {
+        byte[] pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        byte[] binary = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            binary[i] = (pixels[i] & 0xff) < INK_THRESHOLD ? (byte) 255 : 0;
+        }
+        return binary;
+    }
+
+    /**
+     * 灰度页面按阈值压缩为 1 bit/像素，深色为前景
+     */
+    static PackedBinary pack(BufferedImage gray) {
+        return pack(binarize(gray), gray.getWidth(), gray.getHeight());
+    }
+
+    /**
+     * 压缩 0/255 二值图，非0为前景
+     */
+    static PackedBinary pack(byte[] binary, int width, int height) {
+        int stride = PackedBinary.wordsFor(width);
+        long[] words = new long[stride * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (binary[y * width + x] != 0) {
+                    words[y * stride + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+        return PackedBinary.wrap(width, height, words);
+    }
+
+    /**
+     * 压缩按行给出的前景标记
+     */
+    static PackedBinary pack(boolean[][] ink) {
+        int width = ink[0].length;
+        int stride = PackedBinary.wordsFor(width);
+        long[] words = new long[stride * ink.length];
+        for (int y = 0; y < ink.length; y++) {
+            for (int x = 0; x < width; x++) {
+                if (ink[y][x]) {
+                    words[y * stride + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+        return PackedBinary.wrap(width, ink.length, words);
+    }
+
+    /**
+     * 逐像素参考评分：每个前景像素按旋转公式落到最近的目标行；
+     * 边框逐个目标像素反向映射，落在块外的按255计，再求行投影的 CV²/mean
+     *
+     * @param binary    0/255 二值图
+     * @param pageWidth 二值图宽度
+     */
+    static double referenceScore(byte[] binary, int pageWidth, Rect roi, double angle) {
+        int width = roi.width;
+        int height = roi.height;
+        double centerX = width / 2.0;
+        double centerY = height / 2.0;
+        double rad = Math.toRadians(angle);
+        double cos = Math.cos(rad);
+        double sin = Math.sin(rad);
+        int newW = (int) Math.round(height * Math.abs(sin) + width * Math.abs(cos));
+        int newH = (int) Math.round(height * Math.abs(cos) + width * Math.abs(sin));
+
+        long[] rows = new long[newH];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (binary[(roi.y + y) * pageWidth + roi.x + x] == 0) {
+                    continue;
+                }
+                double target = -sin * (x - centerX) + cos * (y - centerY) + newH / 2.0 + 0.5;
+                if (target >= 0 && (int) target < newH) {
+                    rows[(int) target]++;
+                }
+            }
+        }
+        for (int r = 0; r < newH; r++) {
+            double dy = r - newH / 2.0;
+            for (int c = 0; c < newW; c++) {
+                double dx = c - newW / 2.0;
+                double sx = cos * dx - sin * dy + centerX;
+                double sy = sin * dx + cos * dy + centerY;
+                if (sx < -0.5 || sx >= width - 0.5 || sy < -0.5 || sy >= height - 0.5) {
+                    rows[r]++;
+                }
+            }
+        }
+
+        double sum = 0;
+        double sumSq = 0;
+        for (long count : rows) {
+            double v = count * 255.0;
+            sum += v;
+            sumSq += v * v;
+        }
+        double mean = sum / newH;
+        if (mean < 1.0) {
+            return 0.0;
+        }
+        double variance = Math.max(0.0, sumSq / newH - mean * mean);
+        return variance / (mean + 1e-5);
+    }
+}
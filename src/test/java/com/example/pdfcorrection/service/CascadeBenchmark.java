@@ -0,0 +1,132 @@
+package com.example.pdfcorrection.service;
+
+import com.example.pdfcorrection.PDFApplication;
+import com.example.pdfcorrection.model.PageData;
+import com.example.pdfcorrection.model.SkewDetectorStats;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 倾斜检测级联对比：各检测器单独运行以及组合级联时的单页耗时和角度误差
+ *
+ * <p>页面由 {@link SkewedPages} 生成扫描件式 PDF，再经 PDFBox 按 150 DPI 渲染为灰度图，
+ * 走与线上相同的 {@link PdfCorrectionService#detectPageSkewAngle(PageData)}：FFT 为真实的
+ * Core.dft 路径，Radon 为 detectByRadonOnTextMask 的分块投票。倾斜角一半在 ±4.5° 内均匀分布，
+ * 一半在 ±0.5° 内；关闭文档级先验，各页独立检测。每个级联启动一个不带 Web 的应用上下文，
+ * 预热一遍后计时一遍。fft 单独运行或默认级联的最大误差超过 {@link #FFT_MAX_ERROR} 时以非0状态退出
+ * (其他含 radon 的级联会融合 Radon 的边框偏差，不做此检查)。
+ * 参数为级联，可用分号附加配置，如 {@code radon;pdf.correction.radon.search=grid}。运行：
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="--add-modules jdk.incubator.vector -cp %classpath \
+ *     com.example.pdfcorrection.service.CascadeBenchmark fft hough,fft,radon"
+ * </pre>
+ */
+public class CascadeBenchmark {
+
+    private static final int PAGES = 40;
+    // FFT 单独运行时最大误差约0.03°；默认级联由 FFT 定论，融合不应把它拉到 Hough 的水平(约0.09°)
+    private static final double FFT_MAX_ERROR = 0.05;
+    private static final List<String> FFT_ACCURACY_CASCADES = Arrays.asList("fft", "hough,fft,radon");
+
+    public static void main(String[] args) throws Exception {
+        List<String> cascades = args.length == 0 ?
+                Arrays.asList("fft", "hough", "radon", "hough,fft,radon", "hough,radon", "fft,radon") : Arrays.asList(args);
+
+        Path dir = Files.createTempDirectory("cascade-bench");
+        Random random = new Random(17);
+        double[] angles = new double[PAGES];
+        for (int i = 0; i < PAGES; i++) {
+            angles[i] = (random.nextDouble() * 2 - 1) * (i % 2 == 0 ? 4.5 : 0.5);
+        }
+        Path pdf = SkewedPages.writePdf(dir.resolve("input.pdf"), angles, 17);
+        List<PageData> pages = new ArrayList<>(PAGES);
+        try (PDDocument document = PDDocument.load(pdf.toFile())) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            for (int i = 0; i < PAGES; i++) {
+                BufferedImage image = renderer.renderImageWithDPI(i, 150, ImageType.GRAY);
+                pages.add(new PageData(i, image, PDRectangle.A4));
+            }
+        }
+
+        List<String> failures = new ArrayList<>();
+        System.out.printf("%-24s %10s %10s %10s %10s   %s%n",
+                "cascade", "ms/page", "mean err", "p90 err", "max err", "检测器: 调用/定论/平均ms");
+        for (String spec : cascades) {
+            String[] parts = spec.split(";");
+            List<String> settings = new ArrayList<>(Arrays.asList(
+                    "--file.upload-dir=" + dir.resolve("out"),
+                    "--pdf.correction.detect.cascade=" + parts[0],
+                    "--pdf.correction.prior.enabled=false",
+                    "--pdf.correction.min-angle=0",
+                    "--logging.level.root=WARN"));
+            for (int i = 1; i < parts.length; i++) {
+                settings.add("--" + parts[i]);
+            }
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PDFApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .bannerMode(Banner.Mode.OFF)
+                    // 以命令行参数传入，优先于 application.properties
+                    .run(settings.toArray(new String[0]))) {
+                PdfCorrectionService service = context.getBean(PdfCorrectionService.class);
+                for (PageData page : pages) {
+                    service.detectPageSkewAngle(page);
+                }
+                Map<String, SkewDetectorStats> before = byName(service.getDetectorStats());
+
+                double[] errors = new double[PAGES];
+                long start = System.nanoTime();
+                for (int i = 0; i < PAGES; i++) {
+                    errors[i] = Math.abs(service.detectPageSkewAngle(pages.get(i)).getAngle() - angles[i]);
+                }
+                double millisPerPage = (System.nanoTime() - start) / 1e6 / PAGES;
+
+                StringBuilder detectors = new StringBuilder();
+                for (SkewDetectorStats stats : service.getDetectorStats()) {
+                    SkewDetectorStats warm = before.get(stats.getName());
+                    long invocations = stats.getInvocations() - warm.getInvocations();
+                    if (invocations > 0) {
+                        detectors.append(String.format(Locale.ROOT, "%s %d/%d/%.1f  ", stats.getName(), invocations,
+                                stats.getDecisive() - warm.getDecisive(),
+                                (stats.getTotalMillis() - warm.getTotalMillis()) / (double) invocations));
+                    }
+                }
+                Arrays.sort(errors);
+                System.out.printf(Locale.ROOT, "%-24s %10.1f %10.3f %10.3f %10.3f   %s%n", spec, millisPerPage,
+                        Arrays.stream(errors).average().orElse(0), errors[(int) (PAGES * 0.9)],
+                        errors[PAGES - 1], detectors);
+                if (FFT_ACCURACY_CASCADES.contains(parts[0]) && errors[PAGES - 1] > FFT_MAX_ERROR) {
+                    failures.add(String.format(Locale.ROOT, "%s: 最大误差 %.3f° > %.2f°",
+                            spec, errors[PAGES - 1], FFT_MAX_ERROR));
+                }
+            }
+        }
+        if (!failures.isEmpty()) {
+            failures.forEach(System.err::println);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, SkewDetectorStats> byName(List<SkewDetectorStats> stats) {
+        Map<String, SkewDetectorStats> map = new HashMap<>();
+        stats.forEach(s -> map.put(s.getName(), s));
+        return map;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.pdfcorrection.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CorrectionJobTest {
+
+    @Test
+    void runsQueuedActionsOnlyBeforeTheJobLeavesTheQueue() {
+        CorrectionJob job = new CorrectionJob("job", "a.pdf");
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(job.whileQueued(runs::incrementAndGet));
+        job.markRunning();
+        assertFalse(job.whileQueued(runs::incrementAndGet));
+
+        CorrectionJob cancelled = new CorrectionJob("cancelled", "b.pdf");
+        cancelled.markCancelled();
+        assertFalse(cancelled.whileQueued(runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+    }
+}
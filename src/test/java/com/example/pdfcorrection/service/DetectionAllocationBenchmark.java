@@ -0,0 +1,150 @@
+package com.example.pdfcorrection.service;
+
+import com.example.pdfcorrection.PDFApplication;
+import com.example.pdfcorrection.model.PageData;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * 单页倾斜检测(Hough + Radon)在稳态下的 Java 堆分配量
+ *
+ * <p>页面与 {@link CascadeBenchmark} 相同：扫描件式 PDF 按 150 DPI 渲染为灰度图，走
+ * {@link PdfCorrectionService#detectPageSkewAngle(PageData)}。级联置信度阈值设为1以上，
+ * 级联中的检测器每页都会运行。分两种方式各测一遍：
+ * <ul>
+ *   <li>复用：各线程的 {@link DetectionWorkspace} 跨页保留，即线上情形</li>
+ *   <li>每页新建：每页开始前清掉调用线程和 radonPool 各线程的工作区，相当于不做工作区复用</li>
+ * </ul>
+ * 分配量是所有线程 {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes} 之和，
+ * 含级联外的页面开销(灰度缓冲、检测上下文、日志摘要)；OpenCV 的本地内存不在其中。运行：
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="--add-modules jdk.incubator.vector -cp %classpath \
+ *     com.example.pdfcorrection.service.DetectionAllocationBenchmark hough radon hough,radon"
+ * </pre>
+ */
+public class DetectionAllocationBenchmark {
+
+    private static final int PAGES = 12;
+    private static final int WARMUP_ROUNDS = 3;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        List<String> cascades = args.length == 0 ? Arrays.asList("hough", "radon", "hough,radon") : Arrays.asList(args);
+
+        Path dir = Files.createTempDirectory("allocation-bench");
+        Random random = new Random(23);
+        double[] angles = new double[PAGES];
+        for (int i = 0; i < PAGES; i++) {
+            angles[i] = (random.nextDouble() * 2 - 1) * 4.5;
+        }
+        Path pdf = SkewedPages.writePdf(dir.resolve("input.pdf"), angles, 23);
+        List<PageData> pages = new ArrayList<>(PAGES);
+        try (PDDocument document = PDDocument.load(pdf.toFile())) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            for (int i = 0; i < PAGES; i++) {
+                BufferedImage image = renderer.renderImageWithDPI(i, 150, ImageType.GRAY);
+                pages.add(new PageData(i, image, PDRectangle.A4));
+            }
+        }
+
+        System.out.printf("%-16s %16s %16s%n", "cascade", "复用 B/page", "每页新建 B/page");
+        for (String cascade : cascades) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PDFApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .bannerMode(Banner.Mode.OFF)
+                    .run("--file.upload-dir=" + dir.resolve("out"),
+                            "--pdf.correction.detect.cascade=" + cascade,
+                            "--pdf.correction.detect.confidence-threshold=2",
+                            "--pdf.correction.prior.enabled=false",
+                            "--logging.level.root=WARN")) {
+                PdfCorrectionService service = context.getBean(PdfCorrectionService.class);
+                for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                    measure(service, pages, false);
+                    measure(service, pages, true);
+                }
+                System.out.printf(Locale.ROOT, "%-16s %16d %16d%n", cascade,
+                        measure(service, pages, false), measure(service, pages, true));
+            }
+        }
+    }
+
+    /**
+     * 逐页检测，返回每页平均分配字节数；fresh 为 true 时每页开始前清掉各线程的工作区
+     */
+    private static long measure(PdfCorrectionService service, List<PageData> pages, boolean fresh)
+            throws Exception {
+        long overhead = allocatedBytes() - allocatedBytes();
+        long total = 0;
+        for (PageData page : pages) {
+            if (fresh) {
+                dropWorkspaces(service);
+            }
+            long before = allocatedBytes();
+            service.detectPageSkewAngle(page);
+            total += allocatedBytes() - before + overhead;
+        }
+        return total / pages.size();
+    }
+
+    /**
+     * 所有存活线程累计分配的字节数
+     */
+    private static long allocatedBytes() {
+        long sum = 0;
+        for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            sum += Math.max(0, bytes);
+        }
+        return sum;
+    }
+
+    /**
+     * 清掉调用线程和 radonPool 每个工作线程的 {@link DetectionWorkspace}。
+     * ThreadLocal 只能由所属线程清除：提交与并行度相同数量的任务，各自等到全部开始，
+     * 保证每个工作线程各执行一个
+     */
+    @SuppressWarnings("unchecked")
+    private static void dropWorkspaces(PdfCorrectionService service) throws Exception {
+        ThreadLocal<DetectionWorkspace> workspace =
+                (ThreadLocal<DetectionWorkspace>) ReflectionTestUtils.getField(PdfCorrectionService.class, "WORKSPACE");
+        ForkJoinPool radonPool = (ForkJoinPool) ReflectionTestUtils.getField(service, "radonPool");
+        workspace.remove();
+
+        int workers = radonPool.getParallelism();
+        CountDownLatch started = new CountDownLatch(workers);
+        List<Future<?>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            tasks.add(radonPool.submit(() -> {
+                workspace.remove();
+                started.countDown();
+                started.await();
+                return null;
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.pdfcorrection.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentAnglePriorTest {
+
+    @Test
+    void recordsEachPageOnce() {
+        DocumentAnglePrior prior = new DocumentAnglePrior(5.0, 3, 3.0, 0.3, 0.5);
+        prior.record(0, 1.0);
+        prior.record(0, 1.0);
+        prior.record(1, 1.1);
+        prior.record(1, 1.1);
+
+        assertEquals(2, prior.getSampleCount());
+        assertTrue(prior.currentWindow().isFull());
+
+        prior.record(2, 0.9);
+        assertEquals(3, prior.getSampleCount());
+        assertFalse(prior.currentWindow().isFull());
+        assertEquals(1.0, prior.currentWindow().center, 1e-9);
+    }
+
+    @Test
+    void ignoresMissingAngles() {
+        DocumentAnglePrior prior = new DocumentAnglePrior(5.0, 1, 3.0, 0.3, 0.5);
+        prior.record(0, Double.NaN);
+        prior.record(0, 2.0);
+
+        assertEquals(1, prior.getSampleCount());
+        assertEquals(2.0, prior.currentWindow().center, 1e-9);
+    }
+}
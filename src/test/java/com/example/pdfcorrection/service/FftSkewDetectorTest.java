@@ -0,0 +1,81 @@
+package com.example.pdfcorrection.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FFT 检测器在检测分辨率(A4 150 DPI 按长边缩到1000)合成页面上的精度
+ */
+class FftSkewDetectorTest {
+
+    private static final double[] ANGLES = {-4.5, -3.1, -1.7, -0.42, -0.13, 0.0, 0.05, 0.08, 0.1,
+            0.15, 0.27, 0.9, 2.35, 3.8, 4.6};
+    // 0.1° 以内的倾斜被像素网格的0°谱线吸过去，检测为0°附近(0.08° 检测为约0.007°)
+    private static final double GRID_LOCK_RANGE = 0.12;
+    private static final double MAX_ERROR = 0.03;
+    private static final double MAX_ERROR_NEAR_ZERO = 0.1;
+    private static final double MEAN_ERROR = 0.02;
+
+    private final FftSkewDetector detector = new FftSkewDetector(5.0, 20);
+
+    @BeforeAll
+    static void loadOpenCv() {
+        nu.pattern.OpenCV.loadLocally();
+    }
+
+    @Test
+    void detectsSyntheticSkewWithinThreeHundredthsOfADegree() {
+        double total = 0;
+        int count = 0;
+        for (long seed = 1; seed <= 2; seed++) {
+            for (double angle : ANGLES) {
+                SkewDetector.Estimate estimate = detect(angle, seed);
+                assertTrue(estimate.isValid(), angle + "° 没有结果");
+                double error = Math.abs(estimate.angle - angle);
+                double limit = Math.abs(angle) < GRID_LOCK_RANGE ? MAX_ERROR_NEAR_ZERO : MAX_ERROR;
+                assertTrue(error <= limit, angle + "° 检测为 " + estimate.angle + "°");
+                assertTrue(estimate.confidence > 0.3, angle + "° 置信度 " + estimate.confidence);
+                total += error;
+                count++;
+            }
+        }
+        assertTrue(total / count <= MEAN_ERROR, "平均误差 " + total / count);
+    }
+
+    @Test
+    void blankPageHasNoConfidence() {
+        Mat blank = new Mat(1000, 707, CvType.CV_8UC1);
+        blank.setTo(new Scalar(255));
+        try (PageAnalysis page = new PageAnalysis(blank, gray -> null)) {
+            SkewDetector.Estimate estimate = detector.detect(page, AngleWindow.full(5.0), PageDeadline.unbounded());
+            assertEquals(0.0, estimate.confidence, 1e-9);
+        }
+    }
+
+    /**
+     * 与线上相同：150 DPI 灰度页按 INTER_AREA 缩到长边1000后检测
+     */
+    private SkewDetector.Estimate detect(double angle, long seed) {
+        BufferedImage image = SkewedPages.render(SkewedPages.A4_WIDTH, SkewedPages.A4_HEIGHT, angle, seed);
+        Mat full = new Mat(image.getHeight(), image.getWidth(), CvType.CV_8UC1);
+        full.put(0, 0, ((DataBufferByte) image.getRaster().getDataBuffer()).getData());
+        Mat gray = new Mat();
+        double scale = 1000.0 / SkewedPages.A4_HEIGHT;
+        Imgproc.resize(full, gray, new Size(), scale, scale, Imgproc.INTER_AREA);
+        full.release();
+        try (PageAnalysis page = new PageAnalysis(gray, g -> null)) {
+            return detector.detect(page, AngleWindow.full(5.0), PageDeadline.unbounded());
+        }
+    }
+}
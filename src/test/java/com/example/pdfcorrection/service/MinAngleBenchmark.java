@@ -0,0 +1,95 @@
+package com.example.pdfcorrection.service;
+
+import com.example.pdfcorrection.PDFApplication;
+import com.example.pdfcorrection.model.CorrectionResult;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 小角度死区(pdf.correction.min-angle)对整份文档矫正耗时和峰值堆内存的影响
+ *
+ * <p>合成文档中约六成页面没有倾斜，其余在 ±0.3°~2° 之间；未倾斜页面的检测结果是
+ * 百分之几度的噪声，死区为0时它们也会被全分辨率重渲染并旋转。
+ * 每个死区值启动一个不带 Web 的应用上下文，预热一次后取3次的中位数。运行：
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="--add-modules jdk.incubator.vector -cp %classpath \
+ *     com.example.pdfcorrection.service.MinAngleBenchmark 0 0.05"
+ * </pre>
+ */
+public class MinAngleBenchmark {
+
+    private static final int PAGES = 40;
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws Exception {
+        double[] deadBands = args.length == 0 ? new double[]{0, 0.05}
+                : Arrays.stream(args).mapToDouble(Double::parseDouble).toArray();
+
+        Path dir = Files.createTempDirectory("min-angle-bench");
+        Random random = new Random(42);
+        double[] angles = new double[PAGES];
+        for (int i = 0; i < PAGES; i++) {
+            if (random.nextInt(10) >= 6) {
+                angles[i] = (0.3 + random.nextDouble() * 1.7) * (random.nextBoolean() ? 1 : -1);
+            }
+        }
+        byte[] pdf = Files.readAllBytes(SkewedPages.writePdf(dir.resolve("input.pdf"), angles, 42));
+
+        System.out.printf("%d 页, 其中 %d 页倾斜%n", PAGES,
+                Arrays.stream(angles).filter(a -> a != 0).count());
+        System.out.printf("%-10s %10s %10s %12s %12s %18s%n",
+                "min-angle", "耗时 ms", "ms/页", "重渲染页数", "峰值堆 MB", "未倾斜页最大|角度|");
+        for (double deadBand : deadBands) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PDFApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .bannerMode(Banner.Mode.OFF)
+                    // 以命令行参数传入，优先于 application.properties
+                    .run("--file.upload-dir=" + dir.resolve("out"),
+                            "--pdf.correction.min-angle=" + deadBand,
+                            "--logging.level.root=WARN")) {
+                PdfCorrectionService service = context.getBean(PdfCorrectionService.class);
+                MockMultipartFile file = new MockMultipartFile("file", "input.pdf", "application/pdf", pdf);
+                service.correctPdfSkewWithAngle(file);
+
+                long[] millis = new long[RUNS];
+                long[] peakHeap = new long[RUNS];
+                long corrected = 0;
+                double noise = 0;
+                for (int run = 0; run < RUNS; run++) {
+                    System.gc();
+                    ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+                    long start = System.nanoTime();
+                    CorrectionResult result = service.correctPdfSkewWithAngle(file);
+                    millis[run] = (System.nanoTime() - start) / 1_000_000;
+                    peakHeap[run] = ManagementFactory.getMemoryPoolMXBeans().stream()
+                            .filter(pool -> pool.getType() == MemoryType.HEAP)
+                            .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                            .sum();
+                    corrected = result.getPageAngles().stream().filter(a -> Math.abs(a) > deadBand).count();
+                    for (int i = 0; i < PAGES; i++) {
+                        if (angles[i] == 0) {
+                            noise = Math.max(noise, Math.abs(result.getPageAngles().get(i)));
+                        }
+                    }
+                }
+                Arrays.sort(millis);
+                Arrays.sort(peakHeap);
+                long median = millis[RUNS / 2];
+                System.out.printf("%-10s %10d %10.1f %12d %12d %18.3f%n", deadBand, median, median / (double) PAGES,
+                        corrected, peakHeap[RUNS / 2] >> 20, noise);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.pdfcorrection.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CNN 检测器的凑批、输出解析和退出路径，模型由 {@link SkewTestModels} 生成
+ */
+class OnnxSkewDetectorTest {
+
+    private static final int INPUT_SIZE = 32;
+    private static final int PAGE_SIZE = 64;
+
+    @TempDir
+    Path dir;
+
+    private OnnxSkewDetector detector;
+
+    @BeforeAll
+    static void loadOpenCv() {
+        nu.pattern.OpenCV.loadLocally();
+    }
+
+    @AfterEach
+    void close() {
+        if (detector != null) {
+            detector.close();
+        }
+    }
+
+    @Test
+    void twoColumnOutputIsAngleAndClampedConfidence() throws Exception {
+        detector = open(SkewTestModels.twoColumns(dir.resolve("skew.onnx"), INPUT_SIZE, 0.8f), 1, 0);
+        SkewDetector.Estimate estimate = detect(128, PageDeadline.unbounded());
+        assertEquals(expectedAngle(128), estimate.angle, 1e-4);
+        assertEquals(0.8, estimate.confidence, 1e-6);
+        assertEquals(estimate.confidence, estimate.score, 1e-12);
+        detector.close();
+
+        detector = open(SkewTestModels.twoColumns(dir.resolve("over.onnx"), INPUT_SIZE, 1.7f), 1, 0);
+        assertEquals(1.0, detect(128, PageDeadline.unbounded()).confidence, 1e-12);
+    }
+
+    @Test
+    void oneColumnOutputUsesDefaultConfidence() throws Exception {
+        detector = open(SkewTestModels.oneColumn(dir.resolve("angle.onnx"), INPUT_SIZE), 1, 0);
+        SkewDetector.Estimate estimate = detect(200, PageDeadline.unbounded());
+        assertEquals(expectedAngle(200), estimate.angle, 1e-4);
+        assertEquals(0.5, estimate.confidence, 1e-12);
+    }
+
+    @Test
+    void nonFiniteAngleOrFailedInferenceGivesNoResult() throws Exception {
+        detector = open(SkewTestModels.nanAngle(dir.resolve("nan.onnx"), INPUT_SIZE), 1, 0);
+        assertFalse(detect(128, PageDeadline.unbounded()).isValid());
+        detector.close();
+
+        // 推理失败后批处理线程继续服务后面的请求
+        detector = open(SkewTestModels.broken(dir.resolve("broken.onnx"), INPUT_SIZE), 1, 0);
+        for (int i = 0; i < 2; i++) {
+            SkewDetector.Estimate estimate = detect(128, PageDeadline.unbounded());
+            assertFalse(estimate.isValid());
+            assertEquals(0.0, estimate.confidence, 1e-12);
+        }
+    }
+
+    @Test
+    void concurrentPagesShareABatchAndKeepTheirOwnResults() throws Exception {
+        int pages = 6;
+        detector = open(SkewTestModels.twoColumns(dir.resolve("skew.onnx"), INPUT_SIZE, 0.9f), pages, 500);
+        ExecutorService pool = Executors.newFixedThreadPool(pages);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<SkewDetector.Estimate>> results = new ArrayList<>();
+            for (int i = 0; i < pages; i++) {
+                int gray = 40 * i;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return detect(gray, PageDeadline.unbounded());
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < pages; i++) {
+                assertEquals(expectedAngle(40 * i), results.get(i).get(10, TimeUnit.SECONDS).angle, 1e-4,
+                        "第 " + (i + 1) + " 页");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long batches = ((AtomicLong) ReflectionTestUtils.getField(detector, "batches")).get();
+        long batched = ((AtomicLong) ReflectionTestUtils.getField(detector, "batchedPages")).get();
+        assertEquals(pages, batched);
+        assertTrue(batches <= 2, pages + " 页分成了 " + batches + " 批");
+    }
+
+    @Test
+    void deadlineAndCancellationStopWaiting() throws Exception {
+        // 凑批等待远长于页面时限，调用方不应等到推理
+        detector = open(SkewTestModels.twoColumns(dir.resolve("skew.onnx"), INPUT_SIZE, 0.9f), 8, 5000);
+        PageDeadline deadline = new PageDeadline(new CancellationToken(), 50);
+        deadline.beginStage();
+        long start = System.nanoTime();
+        assertThrows(PageTimeoutException.class, () -> detect(128, deadline));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "超时后仍在等待推理");
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        assertThrows(CancellationException.class, () -> detect(128, new PageDeadline(token, 0)));
+    }
+
+    @Test
+    void closeCompletesWaitingRequestsAndRejectsNewOnes() throws Exception {
+        detector = open(SkewTestModels.twoColumns(dir.resolve("skew.onnx"), INPUT_SIZE, 0.9f), 8, 5000);
+        CompletableFuture<SkewDetector.Estimate> waiting =
+                CompletableFuture.supplyAsync(() -> detect(128, PageDeadline.unbounded()));
+        // 等批处理线程取走请求、进入凑批等待
+        Thread.sleep(300);
+        detector.close();
+        assertFalse(waiting.get(5, TimeUnit.SECONDS).isValid());
+
+        assertFalse(detect(128, PageDeadline.unbounded()).isValid());
+    }
+
+    private OnnxSkewDetector open(Path model, int batchSize, long batchWaitMs) throws Exception {
+        return new OnnxSkewDetector(model.toString(), INPUT_SIZE, batchSize, batchWaitMs, 1, 1, 30);
+    }
+
+    /**
+     * 灰度均匀的方形页面，缩放后铺满模型输入，平均墨迹强度为 (255 - gray) / 255
+     */
+    private SkewDetector.Estimate detect(int gray, PageDeadline deadline) {
+        Mat page = new Mat(PAGE_SIZE, PAGE_SIZE, CvType.CV_8UC1, new Scalar(gray));
+        try (PageAnalysis analysis = new PageAnalysis(page, g -> null)) {
+            return detector.detect(analysis, AngleWindow.full(5.0), deadline);
+        }
+    }
+
+    private static double expectedAngle(int gray) {
+        return (255 - gray) / 255.0 * SkewTestModels.ANGLE_SCALE;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.pdfcorrection.service;
+
+import org.opencv.core.Rect;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 按位压缩二值图与逐像素处理 0/255 字节图的对比
+ *
+ * <p>检测图 707x1000(A4 长边缩到1000)，随机倾斜 ±5° 的合成文本页。逐项计时：
+ * 整页前景计数、提取前景坐标、单个角度的投影评分，以及压缩本身的成本；
+ * 同时给出逐段投影相对逐像素参考的最大偏差。运行：
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath com.example.pdfcorrection.service.PackedBinaryBenchmark [页数]"
+ * </pre>
+ */
+public class PackedBinaryBenchmark {
+
+    private static final int WIDTH = 707;
+    private static final int HEIGHT = 1000;
+    private static final int REPEAT = 20;
+    private static final double[] SCORE_ANGLES = {0.1, 0.4, 2.0};
+
+    public static void main(String[] args) {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        Random random = new Random(42);
+        Rect all = new Rect(0, 0, WIDTH, HEIGHT);
+        RadonProjection.Scratch scratch = new RadonProjection.Scratch();
+
+        double packNanos = 0;
+        double countBytes = 0;
+        double countPacked = 0;
+        double buildBytes = 0;
+        double buildPacked = 0;
+        double[] scoreBytes = new double[SCORE_ANGLES.length];
+        double[] scorePacked = new double[SCORE_ANGLES.length];
+        double maxDeviation = 0;
+        long sink = 0;
+        PackedBinary page = null;
+
+        for (int p = 0; p < pages; p++) {
+            double skew = random.nextDouble() * 10.0 - 5.0;
+            byte[] binary = BinaryPages.binarize(SkewedPages.render(WIDTH, HEIGHT, skew, p));
+
+            long t0 = System.nanoTime();
+            for (int i = 0; i < REPEAT; i++) {
+                page = BinaryPages.pack(binary, WIDTH, HEIGHT);
+            }
+            packNanos += (System.nanoTime() - t0) / (double) REPEAT;
+
+            t0 = System.nanoTime();
+            for (int i = 0; i < REPEAT; i++) {
+                sink += countBytes(binary);
+            }
+            countBytes += (System.nanoTime() - t0) / (double) REPEAT;
+            t0 = System.nanoTime();
+            for (int i = 0; i < REPEAT; i++) {
+                sink += page.count(all);
+            }
+            countPacked += (System.nanoTime() - t0) / (double) REPEAT;
+
+            t0 = System.nanoTime();
+            for (int i = 0; i < REPEAT; i++) {
+                sink += coordinates(binary, WIDTH, HEIGHT).length;
+            }
+            buildBytes += (System.nanoTime() - t0) / (double) REPEAT;
+            t0 = System.nanoTime();
+            for (int i = 0; i < REPEAT; i++) {
+                sink += new RadonProjection(page, all, scratch).getWidth();
+            }
+            buildPacked += (System.nanoTime() - t0) / (double) REPEAT;
+
+            RadonProjection projection = new RadonProjection(page, all, scratch);
+            for (int a = 0; a < SCORE_ANGLES.length; a++) {
+                double angle = SCORE_ANGLES[a];
+                double reference = 0;
+                t0 = System.nanoTime();
+                for (int i = 0; i < REPEAT; i++) {
+                    reference = BinaryPages.referenceScore(binary, WIDTH, all, angle);
+                }
+                scoreBytes[a] += (System.nanoTime() - t0) / (double) REPEAT;
+                double score = 0;
+                t0 = System.nanoTime();
+                for (int i = 0; i < REPEAT; i++) {
+                    score = projection.score(angle);
+                }
+                scorePacked[a] += (System.nanoTime() - t0) / (double) REPEAT;
+                maxDeviation = Math.max(maxDeviation, Math.abs(score - reference) / reference);
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "%dx%d, %d 页, 每项重复 %d 次%n", WIDTH, HEIGHT, pages, REPEAT);
+        System.out.printf(Locale.ROOT, "%-22s %10s %10s%n", "", "8-bit", "packed");
+        System.out.printf(Locale.ROOT, "%-22s %8d KB %8d KB%n", "bytes per pass",
+                (long) WIDTH * HEIGHT / 1024, (long) page.words().length * Long.BYTES / 1024);
+        System.out.printf(Locale.ROOT, "%-22s %10.3f %10.3f ms%n", "ink count",
+                countBytes / pages / 1e6, countPacked / pages / 1e6);
+        System.out.printf(Locale.ROOT, "%-22s %10.3f %10.3f ms%n", "projection build",
+                buildBytes / pages / 1e6, buildPacked / pages / 1e6);
+        for (int a = 0; a < SCORE_ANGLES.length; a++) {
+            System.out.printf(Locale.ROOT, "%-22s %10.3f %10.3f ms%n", "score at " + SCORE_ANGLES[a] + " deg",
+                    scoreBytes[a] / pages / 1e6, scorePacked[a] / pages / 1e6);
+        }
+        System.out.printf(Locale.ROOT, "%-22s %10.3f ms%n", "pack once", packNanos / pages / 1e6);
+        System.out.printf(Locale.ROOT, "%-22s %9.2f %%%n", "max score deviation", maxDeviation * 100);
+        System.out.println(sink == 42 ? "" : " ");
+    }
+
+    private static long countBytes(byte[] binary) {
+        long count = 0;
+        for (byte b : binary) {
+            if (b != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int[] coordinates(byte[] binary, int width, int height) {
+        int[] xs = new int[(int) countBytes(binary)];
+        int n = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (binary[y * width + x] != 0) {
+                    xs[n++] = x;
+                }
+            }
+        }
+        return xs;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.pdfcorrection.service;
+
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PackedBinaryTest {
+
+    private static final int[] WIDTHS = {1, 63, 64, 65, 128, 129};
+    private static final int[] OFFSETS = {0, 1, 37, 63, 64, 65, 127, 128};
+
+    @Test
+    void countMatchesPerPixelReference() {
+        for (int pageWidth : new int[]{256, 300}) {
+            boolean[][] ink = randomInk(pageWidth, 9, pageWidth);
+            PackedBinary page = BinaryPages.pack(ink);
+            for (Rect roi : rois(pageWidth, ink.length)) {
+                assertEquals(referenceCount(ink, roi), page.count(roi), describe(pageWidth, roi));
+            }
+        }
+    }
+
+    @Test
+    void copyAlignedMatchesPerPixelReference() {
+        for (int pageWidth : new int[]{256, 300}) {
+            boolean[][] ink = randomInk(pageWidth, 9, pageWidth + 1);
+            PackedBinary page = BinaryPages.pack(ink);
+            for (Rect roi : rois(pageWidth, ink.length)) {
+                int stride = PackedBinary.wordsFor(roi.width);
+                long[] target = new long[stride * roi.height];
+                // 先填满1，检查每个字都被覆盖、行尾多余的位被清零
+                Arrays.fill(target, -1L);
+                long count = page.copyAligned(roi, target);
+
+                assertEquals(referenceCount(ink, roi), count, describe(pageWidth, roi));
+                for (int r = 0; r < roi.height; r++) {
+                    for (int c = 0; c < stride * 64; c++) {
+                        boolean expected = c < roi.width && ink[roi.y + r][roi.x + c];
+                        boolean actual = (target[r * stride + (c >>> 6)] & 1L << c) != 0;
+                        assertEquals(expected, actual, describe(pageWidth, roi) + " 行 " + r + " 列 " + c);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void densityCountsTheWholePage() {
+        boolean[][] ink = randomInk(300, 9, 7);
+        PackedBinary page = BinaryPages.pack(ink);
+        Rect all = new Rect(0, 0, 300, ink.length);
+        double expected = referenceCount(ink, all) / (300.0 * ink.length);
+        assertEquals(expected, page.density(), 1e-12);
+        assertEquals(expected, page.density(all), 1e-12);
+    }
+
+    /**
+     * 起点不在字边界、宽度跨越 63/64/65、以及贴着最后一列的矩形
+     */
+    private static List<Rect> rois(int pageWidth, int pageHeight) {
+        List<Rect> rois = new ArrayList<>();
+        for (int width : WIDTHS) {
+            for (int x : OFFSETS) {
+                if (x + width <= pageWidth) {
+                    rois.add(new Rect(x, 1, width, pageHeight - 2));
+                }
+            }
+            rois.add(new Rect(pageWidth - width, 0, width, pageHeight));
+        }
+        rois.add(new Rect(0, 0, pageWidth, pageHeight));
+        return rois;
+    }
+
+    static boolean[][] randomInk(int width, int height, long seed) {
+        Random random = new Random(seed);
+        boolean[][] ink = new boolean[height][width];
+        for (boolean[] row : ink) {
+            for (int x = 0; x < width; x++) {
+                row[x] = random.nextInt(3) == 0;
+            }
+        }
+        return ink;
+    }
+
+    private static long referenceCount(boolean[][] ink, Rect roi) {
+        long count = 0;
+        for (int y = roi.y; y < roi.y + roi.height; y++) {
+            for (int x = roi.x; x < roi.x + roi.width; x++) {
+                if (ink[y][x]) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static String describe(int pageWidth, Rect roi) {
+        return "页宽 " + pageWidth + ", 块 " + roi;
+    }
+}
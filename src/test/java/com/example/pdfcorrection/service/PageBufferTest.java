@@ -0,0 +1,166 @@
+package com.example.pdfcorrection.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.CvType;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 像素缓冲的整块复制和缓冲池的复用规则
+ */
+class PageBufferTest {
+
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 23;
+
+    @BeforeAll
+    static void loadOpenCv() {
+        nu.pattern.OpenCV.loadLocally();
+    }
+
+    @Test
+    void loadAndStoreRoundTripEachSupportedType() {
+        PageBuffer.Pool pool = new PageBuffer.Pool(1 << 20);
+        int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+                BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_GRAY};
+        for (int type : types) {
+            BufferedImage image = randomImage(type, type);
+            BufferedImage copy = new BufferedImage(WIDTH, HEIGHT, type);
+            try (PageBuffer page = pool.load(image)) {
+                page.store(copy);
+            }
+            if (image.getRaster().getDataBuffer() instanceof DataBufferInt) {
+                assertArrayEquals(pixels(image), pixels(copy), "类型 " + type);
+            } else {
+                assertArrayEquals(bytes(image), bytes(copy), "类型 " + type);
+            }
+        }
+    }
+
+    @Test
+    void intRgbIsViewedAsBgrxMat() {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(3, 2, 0x123456);
+        try (PageBuffer page = new PageBuffer.Pool(0).load(image)) {
+            assertEquals(CvType.CV_8UC4, page.mat().type());
+            byte[] pixel = new byte[4];
+            page.mat().get(2, 3, pixel);
+            // 小端机器上依次为 B、G、R、X
+            assertArrayEquals(new byte[]{0x56, 0x34, 0x12, 0}, pixel);
+        }
+    }
+
+    @Test
+    void rejectsImagesThatDoNotMatchTheBuffer() {
+        PageBuffer.Pool pool = new PageBuffer.Pool(0);
+        try (PageBuffer page = pool.acquire(HEIGHT, WIDTH, CvType.CV_8UC1)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> page.load(new BufferedImage(WIDTH + 1, HEIGHT, BufferedImage.TYPE_BYTE_GRAY)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> page.store(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR)));
+        }
+        // 子图的栅格不覆盖整个数组，不能整块复制
+        BufferedImage parent = new BufferedImage(WIDTH * 2, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        assertFalse(PageBuffer.supports(parent.getSubimage(0, 0, WIDTH, HEIGHT)));
+        assertFalse(PageBuffer.supports(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_USHORT_GRAY)));
+    }
+
+    @Test
+    void poolLendsTheSmallestIdleBufferWithinFiveQuarters() {
+        PageBuffer.Pool pool = new PageBuffer.Pool(1 << 20);
+        ByteBuffer small = release(pool, 100, 100);
+        ByteBuffer medium = release(pool, 120, 100);
+        ByteBuffer large = release(pool, 200, 100);
+
+        // 9600 字节：10000 和 12000 都在 5/4 以内，取较小的
+        try (PageBuffer page = pool.acquire(96, 100, CvType.CV_8UC1)) {
+            assertSame(small, page.buffer());
+            // 9000 字节：10000 已借出，12000 超过 11250，新分配
+            try (PageBuffer other = pool.acquire(90, 100, CvType.CV_8UC1)) {
+                assertNotSame(small, other.buffer());
+                assertNotSame(medium, other.buffer());
+            }
+        }
+        try (PageBuffer page = pool.acquire(170, 100, CvType.CV_8UC1)) {
+            assertSame(large, page.buffer());
+        }
+        // 11000 字节：10000 不够，取 12000
+        try (PageBuffer page = pool.acquire(110, 100, CvType.CV_8UC1)) {
+            assertSame(medium, page.buffer());
+        }
+    }
+
+    @Test
+    void poolKeepsNoMoreThanMaxIdleBytes() {
+        PageBuffer.Pool pool = new PageBuffer.Pool(15000);
+        ByteBuffer first = release(pool, 100, 100);
+        PageBuffer a = pool.acquire(100, 100, CvType.CV_8UC1);
+        PageBuffer b = pool.acquire(100, 100, CvType.CV_8UC1);
+        assertSame(first, a.buffer());
+        ByteBuffer second = b.buffer();
+        a.close();
+        // 再归还 10000 字节会超过上限，不回收
+        b.close();
+        try (PageBuffer c = pool.acquire(100, 100, CvType.CV_8UC1);
+             PageBuffer d = pool.acquire(100, 100, CvType.CV_8UC1)) {
+            assertSame(first, c.buffer());
+            assertNotSame(second, d.buffer());
+        }
+    }
+
+    @Test
+    void closingTwiceReturnsTheBufferOnce() {
+        PageBuffer.Pool pool = new PageBuffer.Pool(1 << 20);
+        PageBuffer page = pool.acquire(HEIGHT, WIDTH, CvType.CV_8UC3);
+        page.mat();
+        page.close();
+        page.close();
+        try (PageBuffer a = pool.acquire(HEIGHT, WIDTH, CvType.CV_8UC3);
+             PageBuffer b = pool.acquire(HEIGHT, WIDTH, CvType.CV_8UC3)) {
+            assertNotSame(a.buffer(), b.buffer());
+        }
+    }
+
+    /**
+     * 借出一块 rows×cols 的单通道缓冲后立即归还，返回这块缓冲
+     */
+    private static ByteBuffer release(PageBuffer.Pool pool, int rows, int cols) {
+        try (PageBuffer page = pool.acquire(rows, cols, CvType.CV_8UC1)) {
+            return page.buffer();
+        }
+    }
+
+    private static BufferedImage randomImage(int type, long seed) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, type);
+        Random random = new Random(seed);
+        if (image.getRaster().getDataBuffer() instanceof DataBufferInt) {
+            int[] data = pixels(image);
+            for (int i = 0; i < data.length; i++) {
+                data[i] = random.nextInt();
+            }
+        } else {
+            random.nextBytes(bytes(image));
+        }
+        return image;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    private static byte[] bytes(BufferedImage image) {
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+}
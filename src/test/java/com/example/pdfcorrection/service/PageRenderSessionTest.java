@@ -0,0 +1,108 @@
+package com.example.pdfcorrection.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.rendering.ImageType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 并行渲染会话的压力测试：多线程各自持有文档句柄渲染同一文档
+ */
+class PageRenderSessionTest {
+
+    private static final int PAGES = 400;
+    // 每页宽度不同，按 72 DPI 渲染后由图像宽度反推渲染的是哪一页
+    private static final int BASE_WIDTH = 120;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rendersEveryPageExactlyOnceAcrossWorkers() throws Exception {
+        Path pdf = createDocument(tempDir.resolve("stress.pdf"));
+        // 单核环境下也至少开4个线程，保证确实有多个句柄并发
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Map<Integer, AtomicInteger> rendered = new ConcurrentHashMap<>();
+
+        try (PageRenderSession session = new PageRenderSession(pdf)) {
+            List<Future<Integer>> futures = new ArrayList<>(PAGES);
+            for (int i = 0; i < PAGES; i++) {
+                int pageIndex = i;
+                futures.add(executor.submit(() -> {
+                    PageRenderSession.WorkerHandle handle = session.currentHandle();
+                    handle.renderer.setDeadline(PageDeadline.unbounded());
+                    BufferedImage image = handle.renderer.renderImageWithDPI(pageIndex, 72, ImageType.GRAY);
+                    int renderedIndex = image.getWidth() - BASE_WIDTH;
+                    rendered.computeIfAbsent(renderedIndex, k -> new AtomicInteger()).incrementAndGet();
+                    return renderedIndex;
+                }));
+            }
+            for (int i = 0; i < PAGES; i++) {
+                // 任何渲染异常都会在这里以 ExecutionException 抛出
+                assertEquals(i, futures.get(i).get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(PAGES, rendered.size());
+        rendered.forEach((index, count) -> {
+            assertTrue(index >= 0 && index < PAGES, "页码越界: " + index);
+            assertEquals(1, count.get(), "第 " + index + " 页渲染次数");
+        });
+    }
+
+    @Test
+    void rejectsHandlesAfterClose() throws Exception {
+        Path pdf = createDocument(tempDir.resolve("closed.pdf"));
+        PageRenderSession session = new PageRenderSession(pdf);
+        session.currentHandle();
+        session.close();
+        assertThrows(IllegalStateException.class, session::currentHandle);
+    }
+
+    private static Path createDocument(Path path) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < PAGES; i++) {
+                PDPage page = new PDPage(new PDRectangle(BASE_WIDTH + i, 160));
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 10);
+                    content.newLineAtOffset(10, 120);
+                    content.showText("Page " + (i + 1));
+                    content.endText();
+                    for (int line = 0; line < 8; line++) {
+                        content.moveTo(10, 100 - line * 10);
+                        content.lineTo(BASE_WIDTH + i - 10, 100 - line * 10);
+                    }
+                    content.stroke();
+                }
+            }
+            document.save(path.toFile());
+        }
+        return path;
+    }
+}
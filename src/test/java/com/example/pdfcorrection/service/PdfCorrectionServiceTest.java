@@ -0,0 +1,91 @@
+package com.example.pdfcorrection.service;
+
+import com.example.pdfcorrection.model.JobState;
+import com.example.pdfcorrection.model.PageData;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "file.upload-dir=target/test-uploads",
+        "pdf.correction.admission.max-pages-in-flight=4"
+})
+class PdfCorrectionServiceTest {
+
+    private static final int PAGES = 10;
+
+    @SpyBean
+    private PdfCorrectionService service;
+
+    @Autowired
+    private CorrectionJobRegistry jobRegistry;
+
+    @Test
+    void defaultCascadeKeepsFftAccuracy() {
+        // 默认级联 hough,fft,radon：FFT 与 Hough 一致即停止，融合结果应保持 FFT 的精度，不被 Hough 带偏
+        double[] angles = {-3.7, -1.2, -0.4, 0.3, 1.9, 4.2};
+        for (int i = 0; i < angles.length; i++) {
+            PageData page = new PageData(i, SkewedPages.render(
+                    SkewedPages.A4_WIDTH, SkewedPages.A4_HEIGHT, angles[i], i + 1), PDRectangle.A4);
+            double angle = service.detectPageSkewAngle(page).getAngle();
+            assertEquals(angles[i], angle, 0.03, "第 " + (i + 1) + " 页");
+        }
+    }
+
+    @Test
+    void writeFailureCancelsJobAndWaitsForInFlightPages() throws Exception {
+        // 第2页写入失败时，后面最多3页仍在流水线中
+        AtomicInteger writes = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (writes.incrementAndGet() == 2) {
+                throw new IOException("磁盘已满");
+            }
+            return invocation.callRealMethod();
+        }).when(service).writeSinglePage(any(), any(), any());
+
+        double[] angles = new double[PAGES];
+        Arrays.fill(angles, 2.0);
+        Path pdf = SkewedPages.writePdf(Files.createTempFile("write-failure", ".pdf"), angles, 1);
+        CorrectionJob job;
+        try {
+            job = service.submitCorrectionJob(new MockMultipartFile(
+                    "file", "write-failure.pdf", "application/pdf", Files.readAllBytes(pdf)));
+        } finally {
+            Files.deleteIfExists(pdf);
+        }
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> job.getAdmittedJob().get(60, TimeUnit.SECONDS));
+        assertEquals("磁盘已满", failure.getCause().getMessage());
+        assertEquals(JobState.FAILED, job.getState());
+        assertTrue(job.isCancelRequested(), "写入失败后应置位任务的取消令牌");
+        assertEquals(1, job.getCompletedPages());
+
+        // 任务结束时在途页面已全部退出：预算全部归还，线程池中没有排队的阶段
+        PageMemoryBudget budget = (PageMemoryBudget) ReflectionTestUtils.getField(service, "memoryBudget");
+        assertEquals(0, budget.getInUse());
+        assertEquals(0, budget.getPagesInUse());
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "executorService");
+        assertTrue(executor.getQueue().isEmpty(), "任务失败后仍有排队的页面阶段");
+        jobRegistry.remove(job.getId());
+    }
+}
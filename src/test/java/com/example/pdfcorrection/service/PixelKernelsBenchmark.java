@@ -0,0 +1,194 @@
+package com.example.pdfcorrection.service;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+/**
+ * 像素内核(标量 / Vector API)与对应 OpenCV 调用的对比
+ *
+ * <ul>
+ *   <li>RGB 转灰度：A4 300 DPI 的 TYPE_INT_RGB 页面，对比 cvtColor(COLOR_BGRA2GRAY)</li>
+ *   <li>Otsu 二值化：A4 150 DPI 检测图，对比 threshold(THRESH_BINARY_INV | THRESH_OTSU)，
+ *       以及改动前的 threshold + countNonZero + PackedBinary.of</li>
+ *   <li>投影矩：2600 行，对比 Core.meanStdDev</li>
+ * </ul>
+ * 每项预热2秒后取50次中的最短时间，同时核对输出是否与 OpenCV 一致。
+ * 不带 {@code --add-modules jdk.incubator.vector} 时 vector 一列就是标量实现。运行：
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="--add-modules jdk.incubator.vector -cp %classpath com.example.pdfcorrection.service.PixelKernelsBenchmark"
+ * </pre>
+ */
+public class PixelKernelsBenchmark {
+
+    // Vector API 只有被 C2 编译后才会内联为向量指令，解释执行时比标量慢得多，按时间预热
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final int RUNS = 50;
+    private static final int ROWS = 2600;
+
+    public static void main(String[] args) {
+        nu.pattern.OpenCV.loadLocally();
+        PixelKernels scalar = PixelKernels.scalar();
+        PixelKernels vector = PixelKernels.get();
+        System.out.println("内核: " + vector.name() + ", OpenCV " + Core.VERSION
+                + ", 线程 " + Core.getNumThreads());
+        System.out.printf(Locale.ROOT, "%-34s %10s %10s %10s%n", "", "opencv", "scalar", "vector");
+
+        grayConversion(scalar, vector);
+        otsu(scalar, vector);
+        moments(scalar, vector);
+    }
+
+    private static void grayConversion(PixelKernels scalar, PixelKernels vector) {
+        BufferedImage rgb = toRgb(SkewedPages.render(2480, 3508, 1.0, 1));
+        int[] pixels = ((DataBufferInt) rgb.getRaster().getDataBuffer()).getData();
+        int count = pixels.length;
+        // 小端上 INT_RGB 的字节依次为 B、G、R、X，与 PageBuffer 的4通道 Mat 相同
+        ByteBuffer bytes = ByteBuffer.allocateDirect(count * 4).order(ByteOrder.nativeOrder());
+        bytes.asIntBuffer().put(pixels);
+        Mat bgrx = new Mat(rgb.getHeight(), rgb.getWidth(), CvType.CV_8UC4, bytes);
+        Mat gray = new Mat();
+        byte[] scalarGray = new byte[count];
+        byte[] vectorGray = new byte[count];
+
+        double opencv = time(() -> Imgproc.cvtColor(bgrx, gray, Imgproc.COLOR_BGRA2GRAY));
+        double s = time(() -> scalar.rgbToGray(pixels, 0, count, scalarGray, 0));
+        double v = time(() -> vector.rgbToGray(pixels, 0, count, vectorGray, 0));
+        print("rgbToGray 2480x3508", opencv, s, v);
+
+        byte[] opencvGray = new byte[count];
+        gray.get(0, 0, opencvGray);
+        System.out.printf(Locale.ROOT, "  与 cvtColor 不同的像素: scalar %d, vector %d%n",
+                mismatches(opencvGray, scalarGray), mismatches(opencvGray, vectorGray));
+        bgrx.release();
+        gray.release();
+    }
+
+    private static void otsu(PixelKernels scalar, PixelKernels vector) {
+        BufferedImage page = SkewedPages.render(SkewedPages.A4_WIDTH, SkewedPages.A4_HEIGHT, 1.0, 2);
+        int width = page.getWidth();
+        int height = page.getHeight();
+        byte[] pixels = ((DataBufferByte) page.getRaster().getDataBuffer()).getData();
+        Mat gray = new Mat(height, width, CvType.CV_8UC1);
+        gray.put(0, 0, pixels);
+        Mat binary = new Mat();
+        double[] opencvThreshold = new double[1];
+
+        double threshold = time(() -> opencvThreshold[0] = Imgproc.threshold(gray, binary, 0, 255,
+                Imgproc.THRESH_BINARY_INV | Imgproc.THRESH_OTSU));
+        double old = time(() -> {
+            Imgproc.threshold(gray, binary, 0, 255, Imgproc.THRESH_BINARY_INV | Imgproc.THRESH_OTSU);
+            Core.countNonZero(binary);
+            PackedBinary.of(binary);
+        });
+        int[] kernelThreshold = new int[2];
+        byte[] kernelBinary = new byte[pixels.length];
+        double s = time(() -> kernelThreshold[0] = otsuPass(scalar, pixels, width, height, kernelBinary));
+        double v = time(() -> kernelThreshold[1] = otsuPass(vector, pixels, width, height, kernelBinary));
+        print("Otsu 1240x1754 (threshold only)", threshold, s, v);
+        print("  + countNonZero + PackedBinary.of", old, s, v);
+
+        byte[] opencvBinary = new byte[width * height];
+        binary.get(0, 0, opencvBinary);
+        System.out.printf(Locale.ROOT, "  阈值: opencv %.0f, scalar %d, vector %d; 二值图不同的像素 %d%n",
+                opencvThreshold[0], kernelThreshold[0], kernelThreshold[1],
+                mismatches(opencvBinary, kernelBinary));
+        gray.release();
+        binary.release();
+    }
+
+    /**
+     * PageAnalysis.ink() 中的内核调用：直方图、Otsu 阈值、反相阈值化并压缩。
+     * 线上原地写回灰度数组，这里写到 binary 以便重复计时
+     */
+    private static int otsuPass(PixelKernels kernels, byte[] pixels, int width, int height, byte[] binary) {
+        int[] hist = new int[256];
+        kernels.histogram(pixels, pixels.length, hist);
+        int threshold = PixelKernels.otsuThreshold(hist, pixels.length);
+        long[] words = new long[PackedBinary.wordsFor(width) * height];
+        kernels.thresholdInv(pixels, width, height, threshold, binary, words);
+        return threshold;
+    }
+
+    private static void moments(PixelKernels scalar, PixelKernels vector) {
+        double[] rows = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = ((i * 7919) % 3000) * 255.0;
+        }
+        Mat column = new Mat(ROWS, 1, CvType.CV_64FC1);
+        column.put(0, 0, rows);
+        MatOfDouble mean = new MatOfDouble();
+        MatOfDouble stdDev = new MatOfDouble();
+        double[] out = new double[2];
+
+        double opencv = time(() -> Core.meanStdDev(column, mean, stdDev));
+        double opencvPut = time(() -> {
+            column.put(0, 0, rows);
+            Core.meanStdDev(column, mean, stdDev);
+        });
+        double s = time(() -> scalar.moments(rows, ROWS, out));
+        double v = time(() -> vector.moments(rows, ROWS, out));
+        print("moments 2600 rows", opencv, s, v);
+        print("  meanStdDev incl. Mat.put", opencvPut, s, v);
+
+        vector.moments(rows, ROWS, out);
+        double m = out[0] / ROWS;
+        System.out.printf(Locale.ROOT, "  均值: opencv %.6f, vector %.6f; 标准差: opencv %.6f, vector %.6f%n",
+                mean.toArray()[0], m, stdDev.toArray()[0], Math.sqrt(out[1] / ROWS - m * m));
+        column.release();
+    }
+
+    private static BufferedImage toRgb(BufferedImage gray) {
+        BufferedImage rgb = new BufferedImage(gray.getWidth(), gray.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.drawImage(gray, 0, 0, null);
+        g.dispose();
+        // 让三个通道各不相同，避免灰度输入掩盖系数差异
+        int[] pixels = ((DataBufferInt) rgb.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] ^= (i * 31) & 0x3f3f3f;
+        }
+        return rgb;
+    }
+
+    private static long mismatches(byte[] a, byte[] b) {
+        long count = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 预热后 RUNS 次中最短的一次(毫秒)
+     */
+    private static double time(Runnable task) {
+        for (long end = System.nanoTime() + WARMUP_NANOS; System.nanoTime() < end; ) {
+            task.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long t0 = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best / 1e6;
+    }
+
+    private static void print(String label, double opencv, double scalar, double vector) {
+        System.out.printf(Locale.ROOT, "%-34s %10.4f %10.4f %10.4f ms%n", label, opencv, scalar, vector);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.pdfcorrection.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Vector API 实现与标量实现的输出逐字节比较(surefire 启动参数带 --add-modules jdk.incubator.vector)
+ */
+class PixelKernelsTest {
+
+    // 覆盖不足一块、恰好整块和整块加零头的长度
+    private static final int[] WIDTHS = {1, 7, 31, 63, 64, 65, 200, 707};
+
+    private static final PixelKernels SCALAR = PixelKernels.scalar();
+    private static PixelKernels vector;
+
+    @BeforeAll
+    static void loadVectorKernels() {
+        vector = PixelKernels.get();
+        assumeTrue(vector instanceof VectorPixelKernels,
+                "Vector API 内核不可用: " + vector.name());
+    }
+
+    @Test
+    void rgbToGrayIsIdentical() {
+        Random random = new Random(1);
+        for (int count : WIDTHS) {
+            int[] rgb = new int[count + 5];
+            for (int i = 0; i < rgb.length; i++) {
+                rgb[i] = random.nextInt();
+            }
+            // 源和目标都从非零偏移开始
+            byte[] expected = new byte[count + 3];
+            byte[] actual = new byte[count + 3];
+            SCALAR.rgbToGray(rgb, 5, count, expected, 3);
+            vector.rgbToGray(rgb, 5, count, actual, 3);
+            assertArrayEquals(expected, actual, "长度 " + count);
+        }
+    }
+
+    @Test
+    void thresholdInvIsIdentical() {
+        Random random = new Random(2);
+        for (int width : WIDTHS) {
+            int height = 5;
+            byte[] gray = new byte[width * height];
+            random.nextBytes(gray);
+            for (int threshold : new int[]{0, 1, 127, 128, 200, 254, 255}) {
+                byte[] expectedBinary = new byte[gray.length];
+                byte[] actualBinary = new byte[gray.length];
+                long[] expectedWords = new long[PackedBinary.wordsFor(width) * height];
+                long[] actualWords = new long[expectedWords.length];
+                long expected = SCALAR.thresholdInv(gray, width, height, threshold, expectedBinary, expectedWords);
+                long actual = vector.thresholdInv(gray, width, height, threshold, actualBinary, actualWords);
+
+                String message = "宽度 " + width + ", 阈值 " + threshold;
+                assertEquals(expected, actual, message);
+                assertArrayEquals(expectedBinary, actualBinary, message);
+                assertArrayEquals(expectedWords, actualWords, message);
+            }
+        }
+    }
+
+    @Test
+    void thresholdInvWorksInPlace() {
+        Random random = new Random(3);
+        byte[] gray = new byte[707 * 4];
+        random.nextBytes(gray);
+        byte[] expected = gray.clone();
+        byte[] actual = gray.clone();
+        long[] expectedWords = new long[PackedBinary.wordsFor(707) * 4];
+        long[] actualWords = new long[expectedWords.length];
+        SCALAR.thresholdInv(expected, 707, 4, 140, expected, expectedWords);
+        vector.thresholdInv(actual, 707, 4, 140, actual, actualWords);
+        assertArrayEquals(expected, actual);
+        assertArrayEquals(expectedWords, actualWords);
+    }
+
+    @Test
+    void momentsAreIdenticalForProjectionRows() {
+        // 投影行值是整数乘以255，和与平方和都在双精度的精确范围内，求和顺序不影响结果
+        Random random = new Random(4);
+        for (int n : new int[]{1, 3, 8, 9, 1001, 2600}) {
+            double[] rows = new double[n];
+            for (int i = 0; i < n; i++) {
+                rows[i] = random.nextInt(5000) * 255.0;
+            }
+            double[] expected = new double[2];
+            double[] actual = new double[2];
+            SCALAR.moments(rows, n, expected);
+            vector.moments(rows, n, actual);
+            assertArrayEquals(expected, actual, "长度 " + n);
+        }
+    }
+
+    @Test
+    void momentsDifferOnlyInRoundingForArbitraryValues() {
+        Random random = new Random(5);
+        double[] values = new double[2600];
+        Arrays.setAll(values, i -> random.nextDouble() * 1e4);
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        SCALAR.moments(values, values.length, expected);
+        vector.moments(values, values.length, actual);
+        assertEquals(expected[0], actual[0], Math.abs(expected[0]) * 1e-12);
+        assertEquals(expected[1], actual[1], Math.abs(expected[1]) * 1e-12);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.pdfcorrection.service;
+
+import com.example.pdfcorrection.model.ProgressDispatchStats;
+import com.example.pdfcorrection.model.ProgressEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProgressServiceTest {
+
+    private ProgressService service;
+
+    private ProgressService start(long delayThresholdMs) {
+        service = new ProgressService();
+        ReflectionTestUtils.setField(service, "minIntervalMs", 250L);
+        ReflectionTestUtils.setField(service, "subscriberBufferSize", 64);
+        ReflectionTestUtils.setField(service, "dispatchThreads", 1);
+        ReflectionTestUtils.setField(service, "delayThresholdMs", delayThresholdMs);
+        service.init();
+        return service;
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void deliversLongBacklogsInBatches() throws InterruptedException {
+        start(60_000);
+        service.open("a");
+        service.open("b");
+        service.subscribe("a");
+        service.subscribe("b");
+        for (int i = 0; i < 40; i++) {
+            service.publish(ProgressEvent.queued("a", i + 1));
+            service.publish(ProgressEvent.queued("b", i + 1));
+        }
+
+        awaitStats(stats -> stats.getDeliveredEvents() == 80);
+        assertEquals(0, service.getDispatchStats().getDroppedEvents());
+        assertEquals(2, service.getDispatchStats().getActiveSubscribers());
+    }
+
+    @Test
+    void closesSubscribersThatFallBehindTheDelayThreshold() throws InterruptedException {
+        // 阈值为负：任何排队事件都算积压
+        start(-1);
+        service.open("a");
+        service.subscribe("a");
+        service.publish(ProgressEvent.queued("a", 1));
+
+        awaitStats(stats -> stats.getActiveSubscribers() == 0);
+        ProgressDispatchStats stats = service.getDispatchStats();
+        assertEquals(1, stats.getStaleSubscribers());
+        assertEquals(0, stats.getDeliveredEvents());
+    }
+
+    @Test
+    void subscribingToAnUnknownJobCompletesAtOnce() throws InterruptedException {
+        start(60_000);
+        SseEmitter emitter = service.subscribe("missing");
+
+        awaitStats(stats -> stats.getActiveSubscribers() == 0);
+        assertCompleted(emitter);
+        assertEquals(0, service.getDispatchStats().getDeliveredEvents());
+        assertFalse(channels().containsKey("missing"), "未登记的任务不应建立频道");
+    }
+
+    @Test
+    void subscribingToAFinishedJobReplaysTheTerminalEventAndCompletes() throws InterruptedException {
+        start(60_000);
+        service.open("a");
+        service.publish(ProgressEvent.cancelled("a"));
+        SseEmitter emitter = service.subscribe("a");
+
+        awaitStats(stats -> stats.getActiveSubscribers() == 0);
+        assertCompleted(emitter);
+        assertEquals(1, service.getDispatchStats().getDeliveredEvents());
+        assertFalse(channels().containsKey("a"), "已结束的任务不应重建频道");
+
+        // 注销后与未登记的任务相同
+        service.release("a");
+        assertCompleted(service.subscribe("a"));
+        assertEquals(1, service.getDispatchStats().getDeliveredEvents());
+    }
+
+    @Test
+    void subscriberOfARunningJobStaysOpenUntilTheTerminalEvent() throws Exception {
+        start(60_000);
+        service.open("a");
+        SseEmitter emitter = service.subscribe("a");
+        service.publish(ProgressEvent.started("a", 3));
+
+        awaitStats(stats -> stats.getDeliveredEvents() == 1);
+        assertEquals(1, service.getDispatchStats().getActiveSubscribers());
+        emitter.send("仍可写入");
+
+        service.publish(ProgressEvent.cancelled("a"));
+        awaitStats(stats -> stats.getActiveSubscribers() == 0);
+        assertEquals(2, service.getDispatchStats().getDeliveredEvents());
+        assertCompleted(emitter);
+    }
+
+    private static void assertCompleted(SseEmitter emitter) {
+        assertThrows(IllegalStateException.class, () -> emitter.send("x"), "连接应已结束");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> channels() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(service, "subscribers");
+    }
+
+    private void awaitStats(Predicate<ProgressDispatchStats> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.test(service.getDispatchStats())) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待派发超时");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.pdfcorrection.service;
+
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Rect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PyramidAngleSearchTest {
+
+    private static final AngleSearchStrategy PYRAMID = new PyramidAngleSearch(0.25, 0.01, 2, 256);
+    private static final AngleSearchStrategy GRID = new GridAngleSearch(0.2, 0.01);
+    private static final PyramidAngleSearch PRODUCTION = new PyramidAngleSearch(
+            PdfCorrectionService.PYRAMID_COARSE_STEP, 0.01,
+            PdfCorrectionService.PYRAMID_MAX_LEVELS, PdfCorrectionService.PYRAMID_MIN_LEVEL_SIZE);
+    // A4 检测图：长边缩到1000
+    private static final int DETECTION_WIDTH = 707;
+    private static final int DETECTION_HEIGHT = 1000;
+
+    @Test
+    void findsTheSkewOfTextBlocks() {
+        double[] angles = {-4.3, -2.05, -0.6, 0.0, 0.35, 1.7, 3.14, 4.4};
+        RadonProjection.Scratch scratch = new RadonProjection.Scratch();
+        Rect roi = new Rect((SkewedPages.A4_WIDTH - 512) / 2, (SkewedPages.A4_HEIGHT - 512) / 2, 512, 512);
+        for (int i = 0; i < angles.length; i++) {
+            PackedBinary page = BinaryPages.pack(
+                    SkewedPages.render(SkewedPages.A4_WIDTH, SkewedPages.A4_HEIGHT, angles[i], i));
+
+            AngleSearchStrategy.Result pyramid = PYRAMID.search(
+                    new RadonProjection(page, roi, scratch), AngleWindow.full(5.0), PageDeadline.unbounded());
+            AngleSearchStrategy.Result grid = GRID.search(
+                    new RadonProjection(page, roi, scratch), AngleWindow.full(5.0), PageDeadline.unbounded());
+
+            assertEquals(angles[i], pyramid.angle, 0.1, "倾斜 " + angles[i]);
+            assertTrue(pyramid.evaluations < grid.evaluations);
+        }
+    }
+
+    @Test
+    void productionBlocksAreSearchedAtFullResolution() {
+        // 线上检测图上的块总是256像素，不建粗层；整页投影才有粗层
+        int blockSize = PdfCorrectionService.radonBlockSize(DETECTION_WIDTH, DETECTION_HEIGHT);
+        assertEquals(256, blockSize);
+        assertEquals(1, PRODUCTION.levelCount(blockSize, blockSize));
+        assertEquals(2, PRODUCTION.levelCount(DETECTION_WIDTH, DETECTION_HEIGHT));
+
+        double[] angles = {-4.1, -2.6, -0.9, -0.2, 0.45, 1.3, 2.8, 4.2};
+        RadonProjection.Scratch scratch = new RadonProjection.Scratch();
+        Rect roi = new Rect((DETECTION_WIDTH - blockSize) / 2, (DETECTION_HEIGHT - blockSize) / 2,
+                blockSize, blockSize);
+        double total = 0;
+        for (int i = 0; i < angles.length; i++) {
+            PackedBinary page = BinaryPages.pack(
+                    SkewedPages.render(DETECTION_WIDTH, DETECTION_HEIGHT, angles[i], 40 + i));
+            AngleSearchStrategy.Result result = PRODUCTION.search(
+                    new RadonProjection(page, roi, scratch), AngleWindow.full(5.0), PageDeadline.unbounded());
+
+            double error = Math.abs(result.angle - angles[i]);
+            assertTrue(error <= 0.3, "倾斜 " + angles[i] + " 检测为 " + result.angle);
+            // 0.25° 粗扫41次，全分辨率两段细扫11 + 9次
+            assertEquals(61, result.evaluations);
+            total += error;
+        }
+        assertTrue(total / angles.length <= 0.1, "平均误差 " + total / angles.length);
+    }
+
+    @Test
+    void windowContainingThePeakGivesTheFullRangeResult() {
+        RadonProjection.Scratch scratch = new RadonProjection.Scratch();
+        int compared = 0;
+        for (int i = 0; i < 6; i++) {
+            double angle = 0.8 + 0.08 * i;
+            PackedBinary page = BinaryPages.pack(
+                    SkewedPages.render(SkewedPages.A4_WIDTH, SkewedPages.A4_HEIGHT, angle, 100 + i));
+            Rect roi = new Rect(200 + 50 * i, 300, 256, 256);
+
+            double full = PYRAMID.search(new RadonProjection(page, roi, scratch),
+                    AngleWindow.full(5.0), PageDeadline.unbounded()).angle;
+            AngleWindow window = AngleWindow.around(1.0, 0.6, 5.0);
+            if (full < window.min() || full > window.max()) {
+                continue;
+            }
+            double windowed = PYRAMID.search(new RadonProjection(page, roi, scratch),
+                    window, PageDeadline.unbounded()).angle;
+            assertEquals(full, windowed, 1e-9, "倾斜 " + angle);
+            compared++;
+        }
+        assertTrue(compared >= 4);
+    }
+
+    @Test
+    void staysInsideANarrowWindow() {
+        PackedBinary page = BinaryPages.pack(
+                SkewedPages.render(SkewedPages.A4_WIDTH, SkewedPages.A4_HEIGHT, 1.2, 7));
+        Rect roi = new Rect(300, 400, 512, 512);
+        AngleWindow window = AngleWindow.around(1.0, 0.5, 5.0);
+
+        AngleSearchStrategy.Result result = PYRAMID.search(
+                new RadonProjection(page, roi, new RadonProjection.Scratch()), window, PageDeadline.unbounded());
+
+        assertTrue(result.angle >= window.min() && result.angle <= window.max());
+        assertEquals(1.2, result.angle, 0.1);
+    }
+}
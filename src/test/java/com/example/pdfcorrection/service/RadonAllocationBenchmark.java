@@ -0,0 +1,59 @@
+package com.example.pdfcorrection.service;
+
+import org.opencv.core.Rect;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Radon 块检测(提取坐标 + 金字塔搜索)在稳态下每块分配的堆内存
+ *
+ * <p>与线上一样，同一线程上的各块共用一份 {@link RadonProjection.Scratch}。
+ * 尺寸 ≥ 512 的块才会建立低分辨率层；整页(A4 150 DPI)一块对应文本掩码不足时的整页 Radon。
+ * 用 {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes} 统计当前线程的分配量。运行：
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath com.example.pdfcorrection.service.RadonAllocationBenchmark"
+ * </pre>
+ */
+public class RadonAllocationBenchmark {
+
+    private static final int WARMUP = 200;
+    private static final int BLOCKS = 200;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        AngleSearchStrategy pyramid = new PyramidAngleSearch(0.25, 0.01, 2, 256);
+        PackedBinary page = BinaryPages.pack(
+                SkewedPages.render(SkewedPages.A4_WIDTH, SkewedPages.A4_HEIGHT, 1.3, 1));
+        Rect[] rois = {
+                centered(256, 256), centered(512, 512), centered(1000, 1000),
+                new Rect(0, 0, SkewedPages.A4_WIDTH, SkewedPages.A4_HEIGHT)
+        };
+
+        System.out.printf("%-12s %10s %14s%n", "block", "levels", "bytes/block");
+        for (Rect roi : rois) {
+            RadonProjection.Scratch scratch = new RadonProjection.Scratch();
+            double sink = 0;
+            for (int i = 0; i < WARMUP; i++) {
+                sink += pyramid.search(new RadonProjection(page, roi, scratch),
+                        AngleWindow.full(5.0), PageDeadline.unbounded()).angle;
+            }
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < BLOCKS; i++) {
+                sink += pyramid.search(new RadonProjection(page, roi, scratch),
+                        AngleWindow.full(5.0), PageDeadline.unbounded()).angle;
+            }
+            long bytes = (threads.getThreadAllocatedBytes(thread) - before) / BLOCKS;
+            int levels = Math.min(roi.width, roi.height) / 2 >= 256 ? 2 : 1;
+            System.out.printf(Locale.ROOT, "%-12s %10d %14d%s%n", roi.width + "x" + roi.height, levels, bytes,
+                    Double.isNaN(sink) ? " " : "");
+        }
+    }
+
+    private static Rect centered(int width, int height) {
+        return new Rect((SkewedPages.A4_WIDTH - width) / 2, (SkewedPages.A4_HEIGHT - height) / 2, width, height);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.pdfcorrection.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RadonProjectionTest {
+
+    private static final int PAGE_WIDTH = 300;
+    private static final int PAGE_HEIGHT = 160;
+
+    // 起点不在字边界、宽度 63/64/65、贴着最后一列
+    // 线上检测图尺寸，块为 256 像素
+    private static final int DETECTION_WIDTH = 707;
+    private static final int DETECTION_HEIGHT = 1000;
+    private static final Rect[] TEXT_BLOCKS = {
+            new Rect(225, 372, 256, 256),
+            new Rect(90, 120, 256, 256),
+            new Rect(371, 650, 256, 256)
+    };
+    // 逐段投影按段中点分行，单个角度的评分与 OpenCV 最多差约5%(实测4.7%)，但各块网格上的最佳角度相同
+    private static final double OPENCV_TOLERANCE = 0.05;
+
+    private static final Rect[] ROIS = {
+            new Rect(0, 0, 64, 150),
+            new Rect(37, 5, 63, 150),
+            new Rect(37, 5, 64, 150),
+            new Rect(37, 5, 65, 150),
+            new Rect(101, 3, 130, 140),
+            new Rect(PAGE_WIDTH - 65, 10, 65, 150),
+            new Rect(PAGE_WIDTH - 129, 0, 129, PAGE_HEIGHT)
+    };
+
+    @BeforeAll
+    static void loadOpenCv() {
+        nu.pattern.OpenCV.loadLocally();
+    }
+
+    @Test
+    void matchesOpenCvWarpScoreOnSkewedText() {
+        // 与改动前的实现对比：每个角度 warpAffine(INTER_NEAREST) 出扩大画布，再 reduce + meanStdDev
+        for (double skew : new double[]{-3.3, -0.6, 0.0, 1.4, 4.1}) {
+            byte[] binary = BinaryPages.binarize(SkewedPages.render(DETECTION_WIDTH, DETECTION_HEIGHT, skew, 5));
+            PackedBinary page = BinaryPages.pack(binary, DETECTION_WIDTH, DETECTION_HEIGHT);
+            Mat mat = new Mat(DETECTION_HEIGHT, DETECTION_WIDTH, CvType.CV_8UC1);
+            mat.put(0, 0, binary);
+            RadonProjection.Scratch scratch = new RadonProjection.Scratch();
+            for (Rect roi : TEXT_BLOCKS) {
+                RadonProjection projection = new RadonProjection(page, roi, scratch);
+                Mat block = mat.submat(roi);
+                double bestAngle = 0;
+                double bestScore = -1;
+                double opencvBestAngle = 0;
+                double opencvBestScore = -1;
+                for (int i = 0; i <= 100; i++) {
+                    double angle = -5.0 + i * 0.1;
+                    double expected = opencvScore(block, angle);
+                    double actual = projection.score(angle);
+                    assertEquals(expected, actual, expected * OPENCV_TOLERANCE,
+                            "倾斜 " + skew + "°, 块 " + roi + ", " + angle + "°");
+                    if (actual > bestScore) {
+                        bestScore = actual;
+                        bestAngle = angle;
+                    }
+                    if (expected > opencvBestScore) {
+                        opencvBestScore = expected;
+                        opencvBestAngle = angle;
+                    }
+                }
+                assertEquals(opencvBestAngle, bestAngle, 1e-9, "倾斜 " + skew + "°, 块 " + roi + " 的最佳角度");
+                assertTrue(Math.abs(bestAngle - skew) <= 0.15, "倾斜 " + skew + "° 检测为 " + bestAngle + "°");
+                block.release();
+            }
+            mat.release();
+        }
+    }
+
+    @Test
+    void spanPathMatchesPerPixelReferenceAtZero() {
+        // 0° 时同一行所有像素落在同一目标行，逐段与逐像素完全一致
+        byte[] binary = textLines(PAGE_WIDTH, PAGE_HEIGHT, 1);
+        PackedBinary page = BinaryPages.pack(binary, PAGE_WIDTH, PAGE_HEIGHT);
+        RadonProjection.Scratch scratch = new RadonProjection.Scratch();
+        for (Rect roi : ROIS) {
+            double expected = BinaryPages.referenceScore(binary, PAGE_WIDTH, roi, 0.0);
+            assertEquals(expected, new RadonProjection(page, roi, scratch).score(0.0), expected * 1e-12,
+                    "块 " + roi);
+        }
+    }
+
+    @Test
+    void spanPathStaysCloseToPerPixelReference() {
+        // 墨迹密集，0.4° 以内按整字分段，2° 时段长7像素，都走逐段投影
+        byte[] binary = textLines(PAGE_WIDTH, PAGE_HEIGHT, 2);
+        PackedBinary page = BinaryPages.pack(binary, PAGE_WIDTH, PAGE_HEIGHT);
+        RadonProjection.Scratch scratch = new RadonProjection.Scratch();
+        for (Rect roi : ROIS) {
+            for (double angle : new double[]{-2.0, -0.4, -0.1, 0.05, 0.2, 0.4, 2.0}) {
+                double expected = BinaryPages.referenceScore(binary, PAGE_WIDTH, roi, angle);
+                double actual = new RadonProjection(page, roi, scratch).score(angle);
+                assertEquals(expected, actual, expected * 0.05, "块 " + roi + ", " + angle + "°");
+            }
+        }
+    }
+
+    @Test
+    void pointPathMatchesPerPixelReference() {
+        // 墨迹稀疏，前景数少于分段数，逐点投影与逐像素参考只可能在边框的浮点边界上相差
+        byte[] binary = new byte[PAGE_WIDTH * PAGE_HEIGHT];
+        Random random = new Random(3);
+        for (int i = 0; i < binary.length; i++) {
+            binary[i] = random.nextInt(40) == 0 ? (byte) 255 : 0;
+        }
+        PackedBinary page = BinaryPages.pack(binary, PAGE_WIDTH, PAGE_HEIGHT);
+        RadonProjection.Scratch scratch = new RadonProjection.Scratch();
+        for (Rect roi : ROIS) {
+            for (double angle : new double[]{-4.5, -1.0, 0.7, 3.0}) {
+                double expected = BinaryPages.referenceScore(binary, PAGE_WIDTH, roi, angle);
+                double actual = new RadonProjection(page, roi, scratch).score(angle);
+                assertEquals(expected, actual, expected * 1e-3, "块 " + roi + ", " + angle + "°");
+            }
+        }
+    }
+
+    /**
+     * 0/255 二值图：每14行一条6行高的"文本行"，行内约六成像素为前景
+     */
+    private static byte[] textLines(int width, int height, long seed) {
+        Random random = new Random(seed);
+        byte[] binary = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            if (y % 14 < 6) {
+                for (int x = 0; x < width; x++) {
+                    binary[y * width + x] = random.nextInt(5) < 3 ? (byte) 255 : 0;
+                }
+            }
+        }
+        return binary;
+    }
+
+    /**
+     * 改动前的评分：按旋转后的完整包围框 warpAffine(INTER_NEAREST，边框填255)，
+     * 逐行求和后取 CV²/mean
+     */
+    private static double opencvScore(Mat block, double angle) {
+        int w = block.cols();
+        int h = block.rows();
+        Point center = new Point(w / 2.0, h / 2.0);
+        Mat rotation = Imgproc.getRotationMatrix2D(center, angle, 1.0);
+        double absCos = Math.abs(rotation.get(0, 0)[0]);
+        double absSin = Math.abs(rotation.get(0, 1)[0]);
+        int newW = (int) Math.round(h * absSin + w * absCos);
+        int newH = (int) Math.round(h * absCos + w * absSin);
+        rotation.put(0, 2, rotation.get(0, 2)[0] + (newW / 2.0 - center.x));
+        rotation.put(1, 2, rotation.get(1, 2)[0] + (newH / 2.0 - center.y));
+
+        Mat rotated = new Mat();
+        Mat projection = new Mat();
+        MatOfDouble mean = new MatOfDouble();
+        MatOfDouble std = new MatOfDouble();
+        try {
+            Imgproc.warpAffine(block, rotated, rotation, new Size(newW, newH),
+                    Imgproc.INTER_NEAREST, Core.BORDER_CONSTANT, new Scalar(255));
+            Core.reduce(rotated, projection, 1, Core.REDUCE_SUM, CvType.CV_32F);
+            Core.meanStdDev(projection, mean, std);
+            double meanValue = mean.get(0, 0)[0];
+            double stdValue = std.get(0, 0)[0];
+            if (meanValue < 1.0) {
+                return 0.0;
+            }
+            return stdValue * stdValue / (meanValue + 1e-5);
+        } finally {
+            rotation.release();
+            rotated.release();
+            projection.release();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.pdfcorrection.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试用的最小 ONNX 模型，满足 {@link OnnxSkewDetector} 的输入输出约定
+ *
+ * <p>与 scripts/make_skew_test_model.py 的结构相同，但角度不恒为0：
+ * 角度 = 输入的平均墨迹强度 × {@link #ANGLE_SCALE}，同一批中各页的结果各不相同，
+ * 可据此核对批内结果没有错位。模型直接按 ONNX 的 protobuf 编码写出，不依赖 onnx 包。
+ * 输入形状为 [N, 1, size, size]，N 为动态维度
+ */
+final class SkewTestModels {
+
+    static final double ANGLE_SCALE = 10.0;
+
+    // onnx.proto 中的枚举值
+    private static final int FLOAT = 1;
+    private static final int INT64 = 7;
+    private static final int ATTRIBUTE_INT = 2;
+    private static final long IR_VERSION = 8;
+    private static final long OPSET = 13;
+
+    private SkewTestModels() {
+    }
+
+    /**
+     * 输出 [N, 2]：(角度, 固定置信度)
+     */
+    static Path twoColumns(Path path, int size, float confidence) throws IOException {
+        return write(path, size, 2, new Graph()
+                .node("GlobalAveragePool", "pooled", "image")
+                .initializer("shape", INT64, new long[]{2}, longs(-1, 1))
+                .node("Reshape", "ink", "pooled", "shape")
+                .initializer("scale", FLOAT, new long[0], floats((float) ANGLE_SCALE))
+                .initializer("zero", FLOAT, new long[0], floats(0f))
+                .initializer("confidence", FLOAT, new long[0], floats(confidence))
+                .node("Mul", "angle", "ink", "scale")
+                .node("Mul", "none", "ink", "zero")
+                .node("Add", "conf", "none", "confidence")
+                .concat("skew", "angle", "conf"));
+    }
+
+    /**
+     * 输出 [N, 1]：只有角度
+     */
+    static Path oneColumn(Path path, int size) throws IOException {
+        return write(path, size, 1, new Graph()
+                .node("GlobalAveragePool", "pooled", "image")
+                .initializer("shape", INT64, new long[]{2}, longs(-1, 1))
+                .node("Reshape", "ink", "pooled", "shape")
+                .initializer("scale", FLOAT, new long[0], floats((float) ANGLE_SCALE))
+                .node("Mul", "skew", "ink", "scale"));
+    }
+
+    /**
+     * 输出 [N, 2]，角度为 NaN
+     */
+    static Path nanAngle(Path path, int size) throws IOException {
+        return write(path, size, 2, new Graph()
+                .node("GlobalAveragePool", "pooled", "image")
+                .initializer("shape", INT64, new long[]{2}, longs(-1, 1))
+                .node("Reshape", "ink", "pooled", "shape")
+                .initializer("nan", FLOAT, new long[0], floats(Float.NaN))
+                .node("Mul", "angle", "ink", "nan")
+                .concat("skew", "angle", "angle"));
+    }
+
+    /**
+     * 推理必定失败：每页一个数，按 [-1, 2] 重排时单页无法整除，多页时输出行数也少于页数
+     */
+    static Path broken(Path path, int size) throws IOException {
+        return write(path, size, 2, new Graph()
+                .node("GlobalAveragePool", "pooled", "image")
+                .initializer("shape", INT64, new long[]{2}, longs(-1, 2))
+                .node("Reshape", "skew", "pooled", "shape"));
+    }
+
+    private static Path write(Path path, int size, int columns, Graph graph) throws IOException {
+        Proto input = valueInfo("image", "N", 1, size, size);
+        Proto output = valueInfo("skew", "N", columns);
+        Proto g = new Proto();
+        for (Proto node : graph.nodes) {
+            g.message(1, node);
+        }
+        g.string(2, "skew_test");
+        for (Proto tensor : graph.initializers) {
+            g.message(5, tensor);
+        }
+        g.message(11, input).message(12, output);
+
+        Proto model = new Proto()
+                .varint(1, IR_VERSION)
+                .message(7, g)
+                .message(8, new Proto().string(1, "").varint(2, OPSET));
+        Files.write(path, model.bytes());
+        return path;
+    }
+
+    /**
+     * 张量类型的输入输出，dims 依次为各维长度，第一维为动态维度 batch
+     */
+    private static Proto valueInfo(String name, String batch, int... dims) {
+        Proto shape = new Proto().message(1, new Proto().string(2, batch));
+        for (int dim : dims) {
+            shape.message(1, new Proto().varint(1, dim));
+        }
+        Proto tensor = new Proto().varint(1, FLOAT).message(2, shape);
+        return new Proto().string(1, name).message(2, new Proto().message(1, tensor));
+    }
+
+    private static byte[] floats(float... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (float v : values) {
+            buffer.putFloat(v);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] longs(long... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (long v : values) {
+            buffer.putLong(v);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 计算图：节点按添加顺序排列，常量作为 initializer
+     */
+    private static final class Graph {
+        final List<Proto> nodes = new ArrayList<>();
+        final List<Proto> initializers = new ArrayList<>();
+
+        Graph node(String op, String output, String... inputs) {
+            Proto node = new Proto();
+            for (String input : inputs) {
+                node.string(1, input);
+            }
+            nodes.add(node.string(2, output).string(3, output).string(4, op));
+            return this;
+        }
+
+        Graph concat(String output, String... inputs) {
+            node("Concat", output, inputs);
+            nodes.get(nodes.size() - 1).message(5, new Proto()
+                    .string(1, "axis").varint(3, 1).varint(20, ATTRIBUTE_INT));
+            return this;
+        }
+
+        Graph initializer(String name, int type, long[] dims, byte[] raw) {
+            Proto tensor = new Proto();
+            for (long dim : dims) {
+                tensor.varint(1, dim);
+            }
+            initializers.add(tensor.varint(2, type).string(8, name).bytes(9, raw));
+            return this;
+        }
+    }
+
+    /**
+     * 按 protobuf 线格式逐字段写出的消息
+     */
+    private static final class Proto {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Proto varint(int field, long value) {
+            tag(field, 0);
+            raw(value);
+            return this;
+        }
+
+        Proto string(int field, String value) {
+            return bytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Proto message(int field, Proto value) {
+            return bytes(field, value.bytes());
+        }
+
+        Proto bytes(int field, byte[] value) {
+            tag(field, 2);
+            raw(value.length);
+            out.write(value, 0, value.length);
+            return this;
+        }
+
+        byte[] bytes() {
+            return out.toByteArray();
+        }
+
+        private void tag(int field, int wireType) {
+            raw((long) field << 3 | wireType);
+        }
+
+        private void raw(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.pdfcorrection.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * 测试与基准用的合成扫描页：按已知角度倾斜排版的随机文字
+ *
+ * <p>角度的符号与检测器约定一致：按 angle 绘制的页面，检测结果应为 angle，
+ * 以 angle 调用 getRotationMatrix2D 即可转正
+ */
+final class SkewedPages {
+
+    // A4 在 150 DPI 下的像素尺寸
+    static final int A4_WIDTH = 1240;
+    static final int A4_HEIGHT = 1754;
+
+    private SkewedPages() {
+    }
+
+    /**
+     * 绘制一页倾斜的文字，页面四周留白，行距与正文字号相近
+     */
+    static BufferedImage render(int width, int height, double angle, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+            g.rotate(Math.toRadians(angle), width / 2.0, height / 2.0);
+            g.setColor(Color.BLACK);
+
+            int fontSize = Math.max(8, width / 70);
+            g.setFont(new Font(Font.SERIF, Font.PLAIN, fontSize));
+            int margin = width / 10;
+            int lineHeight = fontSize * 3 / 2;
+            for (int y = margin; y < height - margin; y += lineHeight) {
+                if (random.nextInt(12) == 0) {
+                    // 段落间空行
+                    continue;
+                }
+                int lineEnd = width - margin - (random.nextInt(6) == 0 ? random.nextInt(width / 2) : 0);
+                StringBuilder line = new StringBuilder();
+                while (g.getFontMetrics().stringWidth(line.toString()) < lineEnd - margin - fontSize * 6) {
+                    line.append(word(random)).append(' ');
+                }
+                g.drawString(line.toString().trim(), margin, y);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static String word(Random random) {
+        char[] letters = new char[2 + random.nextInt(8)];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+
+    /**
+     * 写出扫描件式 PDF：每页一张 A4 满版 JPEG，第 i 页倾斜 angles[i]
+     */
+    static Path writePdf(Path path, double[] angles, long seed) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < angles.length; i++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                BufferedImage image = render(A4_WIDTH, A4_HEIGHT, angles[i], seed + i);
+                PDImageXObject xObject = JPEGFactory.createFromImage(document, image, 0.85f);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.drawImage(xObject, 0, 0, PDRectangle.A4.getWidth(), PDRectangle.A4.getHeight());
+                }
+            }
+            document.save(path.toFile());
+        }
+        return path;
+    }
+}
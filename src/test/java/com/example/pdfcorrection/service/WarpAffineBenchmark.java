@@ -0,0 +1,214 @@
+package com.example.pdfcorrection.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 矫正路径按 TYPE_INT_RGB(4通道 BGRX Mat)与 TYPE_3BYTE_BGR(3通道 Mat)的对比
+ *
+ * <p>A4 页面分别以 150/200/300 DPI 渲染，逐段计时：渲染、复制进池化缓冲、
+ * warpAffine(INTER_CUBIC)、复制回渲染图、JPEG 编码(质量0.85)，每段两种布局交替运行后取中位数。
+ * 同时核对两种布局的旋转结果在 B、G、R 三个通道上是否一致。运行：
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath com.example.pdfcorrection.service.WarpAffineBenchmark [DPI...]"
+ * </pre>
+ */
+public class WarpAffineBenchmark {
+
+    private static final int RUNS = 15;
+    private static final double ANGLE = 1.3;
+    private static final Scalar BORDER_WHITE = new Scalar(255, 255, 255, 255);
+
+    public static void main(String[] args) throws IOException {
+        nu.pattern.OpenCV.loadLocally();
+        int[] dpis = args.length > 0 ? parse(args) : new int[]{150, 200, 300};
+        Path pdf = SkewedPages.writePdf(Files.createTempFile("warp", ".pdf"), new double[]{ANGLE}, 1);
+        PageBuffer.Pool pool = new PageBuffer.Pool(512L * 1024 * 1024);
+        System.out.println("OpenCV " + Core.VERSION + ", 线程 " + Core.getNumThreads());
+        System.out.printf(Locale.ROOT, "%-5s %-10s %9s %9s %9s %9s %9s %9s%n",
+                "dpi", "layout", "render", "load", "warp", "store", "encode", "total");
+
+        try (PDDocument document = PDDocument.load(pdf.toFile())) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            for (int dpi : dpis) {
+                BufferedImage[] images = new BufferedImage[2];
+                double[] render = interleaved(
+                        () -> images[0] = renderer.renderImageWithDPI(0, dpi, ImageType.RGB),
+                        () -> images[1] = renderer.renderImageWithDPI(0, dpi, ImageType.BGR));
+                try (Correction rgb = new Correction(pool, images[0]);
+                     Correction bgr = new Correction(pool, images[1])) {
+                    double[] load = interleaved(rgb::load, bgr::load);
+                    double[] warp = interleaved(rgb::warp, bgr::warp);
+                    double[] store = interleaved(rgb::store, bgr::store);
+                    double[] encode = interleaved(rgb::encode, bgr::encode);
+                    print(dpi, "INT_RGB", render[0], load[0], warp[0], store[0], encode[0]);
+                    print(dpi, "3BYTE_BGR", render[1], load[1], warp[1], store[1], encode[1]);
+                }
+                System.out.printf(Locale.ROOT, "      %dx%d, 旋转结果 B/G/R 不同的字节: %d%n",
+                        images[0].getWidth(), images[0].getHeight(), compareWarps(pool, images[0]));
+            }
+        } finally {
+            Files.deleteIfExists(pdf);
+        }
+    }
+
+    /**
+     * 与 correctImageSkew 相同的步骤：复制进源缓冲、warpAffine 到目标缓冲、复制回图像，再编码
+     */
+    private static final class Correction implements AutoCloseable {
+        private final BufferedImage image;
+        private final BufferedImage result;
+        private final PageBuffer source;
+        private final PageBuffer target;
+        private final Mat rotation;
+
+        Correction(PageBuffer.Pool pool, BufferedImage image) {
+            this.image = image;
+            this.result = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+            this.source = pool.acquire(image.getHeight(), image.getWidth(), typeOf(image));
+            this.target = pool.acquire(image.getHeight(), image.getWidth(), typeOf(image));
+            this.rotation = Imgproc.getRotationMatrix2D(
+                    new Point(image.getWidth() / 2.0, image.getHeight() / 2.0), ANGLE, 1.0);
+            source.load(image);
+        }
+
+        void load() {
+            source.load(image);
+        }
+
+        void warp() {
+            Imgproc.warpAffine(source.mat(), target.mat(), rotation, source.mat().size(),
+                    Imgproc.INTER_CUBIC, Core.BORDER_CONSTANT, BORDER_WHITE);
+        }
+
+        void store() {
+            target.store(result);
+        }
+
+        void encode() throws IOException {
+            WarpAffineBenchmark.encode(result);
+        }
+
+        @Override
+        public void close() {
+            rotation.release();
+            source.close();
+            target.close();
+        }
+    }
+
+    /**
+     * 同一份像素按两种布局旋转，逐字节比较结果(只比 B、G、R)
+     */
+    private static long compareWarps(PageBuffer.Pool pool, BufferedImage rgb) {
+        BufferedImage same = new BufferedImage(rgb.getWidth(), rgb.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = same.createGraphics();
+        g.drawImage(rgb, 0, 0, null);
+        g.dispose();
+        try (PageBuffer four = warp(pool, rgb); PageBuffer three = warp(pool, same)) {
+            long pixels = (long) rgb.getWidth() * rgb.getHeight();
+            long mismatches = 0;
+            for (long i = 0; i < pixels; i++) {
+                for (int c = 0; c < 3; c++) {
+                    if (four.buffer().get((int) (i * 4 + c)) != three.buffer().get((int) (i * 3 + c))) {
+                        mismatches++;
+                    }
+                }
+            }
+            return mismatches;
+        }
+    }
+
+    private static PageBuffer warp(PageBuffer.Pool pool, BufferedImage image) {
+        PageBuffer target = pool.acquire(image.getHeight(), image.getWidth(), typeOf(image));
+        try (PageBuffer source = pool.load(image)) {
+            Mat mat = source.mat();
+            Mat rotation = Imgproc.getRotationMatrix2D(new Point(mat.cols() / 2.0, mat.rows() / 2.0), ANGLE, 1.0);
+            Imgproc.warpAffine(mat, target.mat(), rotation, mat.size(),
+                    Imgproc.INTER_CUBIC, Core.BORDER_CONSTANT, BORDER_WHITE);
+            rotation.release();
+            return target;
+        }
+    }
+
+    private static int typeOf(BufferedImage image) {
+        return image.getType() == BufferedImage.TYPE_INT_RGB ?
+                CvType.CV_8UC4 : CvType.CV_8UC3;
+    }
+
+    private static int encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam params = writer.getDefaultWriteParam();
+        params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        params.setCompressionQuality(0.85f);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), params);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.size();
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    /**
+     * 两种布局交替运行(减少单核机器上其他负载的影响)，预热一轮后各取 RUNS 次的中位数(毫秒)
+     */
+    private static double[] interleaved(Task first, Task second) throws IOException {
+        first.run();
+        second.run();
+        long[][] samples = new long[2][RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long t0 = System.nanoTime();
+            first.run();
+            long t1 = System.nanoTime();
+            second.run();
+            long t2 = System.nanoTime();
+            samples[0][i] = t1 - t0;
+            samples[1][i] = t2 - t1;
+        }
+        Arrays.sort(samples[0]);
+        Arrays.sort(samples[1]);
+        return new double[]{samples[0][RUNS / 2] / 1e6, samples[1][RUNS / 2] / 1e6};
+    }
+
+    private static void print(int dpi, String layout, double render, double load, double warp,
+                              double store, double encode) {
+        System.out.printf(Locale.ROOT, "%-5d %-10s %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f ms%n",
+                dpi, layout, render, load, warp, store, encode, render + load + warp + store + encode);
+    }
+
+    private static int[] parse(String[] args) {
+        int[] values = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = Integer.parseInt(args[i]);
+        }
+        return values;
+    }
+}